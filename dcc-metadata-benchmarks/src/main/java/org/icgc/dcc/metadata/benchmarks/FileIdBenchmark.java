@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.benchmarks;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.icgc.dcc.common.core.util.UUID5;
+import org.icgc.dcc.metadata.core.id.ObjectIds;
+import org.icgc.dcc.metadata.server.service.EntityService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * UUID5 derivation of entity ids from gnos id and file name, done for every registered entity.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@State(Scope.Benchmark)
+public class FileIdBenchmark {
+
+  String gnosId = "70b07570-0571-11e5-a6c0-1697f925ec7b";
+  String fileName = "b1b7e4ae-c5d1-4a1c-9ab0-48b3e4a5d8c2.bam";
+
+  @Benchmark
+  public String resolveFileId() {
+    return EntityService.resolveFileId(gnosId, fileName);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public String resolveFileId_contended() {
+    return EntityService.resolveFileId(gnosId, fileName);
+  }
+
+  /**
+   * The derivation {@link ObjectIds} replaces, for comparison.
+   */
+  @Benchmark
+  public String uuid5() {
+    return UUID5.fromUTF8(UUID5.getNamespace(), gnosId + "/" + fileName).toString();
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.NoConnectionReuseStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.ssl.SSLContexts;
+import org.icgc.dcc.metadata.client.config.HttpClientConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Per-request latency of the client {@code RestTemplate} against a local TLS Tomcat standing in for the metadata
+ * server, with the pooled client from {@link HttpClientConfig}, the {@code HttpURLConnection} default it replaces and a
+ * client that handshakes for every request.
+ * <p>
+ * The server uses the keystore of {@code dcc-metadata-server}, located with {@code -Dbenchmark.keystore} if not run
+ * from this module's directory.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@State(Scope.Benchmark)
+public class HttpClientBenchmark {
+
+  private static final String KEYSTORE = "../dcc-metadata-server/src/main/conf/keystore.p12";
+  private static final String KEYSTORE_PASSWORD = "P@ssw0rd";
+
+  private static final String ENTITY =
+      "{\"gnosId\":\"70b07570-0571-11e5-a6c0-1697f925ec7b\",\"fileName\":\"a.bam\",\"projectCode\":\"PACA-CA\"}";
+  private static final byte[] RESPONSE = "{\"id\":\"b1b7e4ae-c5d1-4a1c-9ab0-48b3e4a5d8c2\"}".getBytes(UTF_8);
+
+  Tomcat server;
+  String url;
+
+  CloseableHttpClient pooledClient;
+  CloseableHttpClient unpooledClient;
+  RestTemplate pooled;
+  RestTemplate urlConnection;
+  RestTemplate handshakePerRequest;
+
+  @Setup
+  public void setUp() throws IOException, GeneralSecurityException, LifecycleException {
+    server = createServer();
+    server.start();
+    url = "https://127.0.0.1:" + server.getConnector().getLocalPort() + "/entities";
+
+    SSLContext trustAll = SSLContexts.custom().loadTrustMaterial(null, (chain, authType) -> true).build();
+    SSLConnectionSocketFactory sslSocketFactory =
+        new SSLConnectionSocketFactory(trustAll, NoopHostnameVerifier.INSTANCE);
+
+    // As configured by the defaults in the client's application.yml
+    pooledClient = HttpClientConfig.createHttpClient(20, SECONDS.toMillis(15), 10000, 60000, sslSocketFactory);
+    pooled = new RestTemplate(new HttpComponentsClientHttpRequestFactory(pooledClient));
+
+    unpooledClient = HttpClients.custom()
+        .setSSLSocketFactory(sslSocketFactory)
+        .setConnectionReuseStrategy(NoConnectionReuseStrategy.INSTANCE)
+        .build();
+    handshakePerRequest = new RestTemplate(new HttpComponentsClientHttpRequestFactory(unpooledClient));
+
+    urlConnection = new RestTemplate(new SimpleClientHttpRequestFactory() {
+
+      @Override
+      protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+        super.prepareConnection(connection, httpMethod);
+        HttpsURLConnection https = (HttpsURLConnection) connection;
+        https.setSSLSocketFactory(trustAll.getSocketFactory());
+        https.setHostnameVerifier(NoopHostnameVerifier.INSTANCE);
+      }
+
+    });
+  }
+
+  @TearDown
+  public void tearDown() throws IOException, LifecycleException {
+    pooledClient.close();
+    unpooledClient.close();
+    server.stop();
+    server.destroy();
+  }
+
+  @Benchmark
+  public String pooled() {
+    return pooled.postForObject(url, ENTITY, String.class);
+  }
+
+  @Benchmark
+  public String urlConnection() {
+    return urlConnection.postForObject(url, ENTITY, String.class);
+  }
+
+  @Benchmark
+  public String handshakePerRequest() {
+    return handshakePerRequest.postForObject(url, ENTITY, String.class);
+  }
+
+  private static Tomcat createServer() throws IOException {
+    Connector connector = new Connector();
+    connector.setPort(0);
+    connector.setScheme("https");
+    connector.setSecure(true);
+    connector.setAttribute("address", "127.0.0.1");
+    connector.setAttribute("SSLEnabled", true);
+    File keystore = new File(System.getProperty("benchmark.keystore", KEYSTORE));
+    connector.setAttribute("keystoreFile", keystore.getAbsolutePath());
+    connector.setAttribute("keystoreType", "PKCS12");
+    connector.setAttribute("keystorePass", KEYSTORE_PASSWORD);
+
+    Tomcat tomcat = new Tomcat();
+    tomcat.setBaseDir(Files.createTempDirectory("tomcat").toString());
+    tomcat.setConnector(connector);
+    tomcat.getService().addConnector(connector);
+
+    org.apache.catalina.Context context = tomcat.addContext("", null);
+    Tomcat.addServlet(context, "entities", new EntityServlet());
+    context.addServletMappingDecoded("/entities", "entities");
+
+    return tomcat;
+  }
+
+  private static class EntityServlet extends HttpServlet {
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+      ByteStreams.copy(request.getInputStream(), ByteStreams.nullOutputStream());
+
+      response.setContentType("application/json");
+      response.setContentLength(RESPONSE.length);
+      response.getOutputStream().write(RESPONSE);
+    }
+
+  }
+
+}
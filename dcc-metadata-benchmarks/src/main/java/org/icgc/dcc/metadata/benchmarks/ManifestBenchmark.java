@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.icgc.dcc.metadata.client.manifest.Manifest;
+import org.icgc.dcc.metadata.client.manifest.Manifest.ManifestEntry;
+import org.icgc.dcc.metadata.client.manifest.ManifestReader;
+import org.icgc.dcc.metadata.client.manifest.StorageManifestWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import com.google.common.io.Files;
+
+/**
+ * Reading of upload manifests and writing of storage manifests by the client.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@State(Scope.Benchmark)
+public class ManifestBenchmark {
+
+  private static final String GNOS_ID = "70b07570-0571-11e5-a6c0-1697f925ec7b";
+
+  @Param({ "1000", "100000" })
+  int entries;
+
+  File dir;
+  File manifestFile;
+  List<ManifestEntry> manifestEntries;
+
+  ManifestReader reader = new ManifestReader();
+  StorageManifestWriter writer;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dir = Files.createTempDir();
+    manifestFile = new File(dir, "manifest.txt");
+    try (Writer out = Files.newWriter(manifestFile, UTF_8)) {
+      out.write("gnos-id\tproject-code\tfile-name\tfile-md5sum\taccess\n");
+      for (int i = 0; i < entries; i++) {
+        out.write(GNOS_ID + "\tPACA-CA\tfile-" + i + ".bam\t" + String.format("%032x", i) + "\tcontrolled\n");
+      }
+    }
+
+    manifestEntries = reader.readManifest(manifestFile).getEntries();
+    for (int i = 0; i < manifestEntries.size(); i++) {
+      manifestEntries.get(i).setObjectId(String.format("%08d-0000-5000-8000-000000000000", i));
+    }
+
+    File outputDir = new File(dir, "out");
+    outputDir.mkdir();
+    writer = new StorageManifestWriter(outputDir);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    FileSystemUtils.deleteRecursively(dir);
+  }
+
+  @Benchmark
+  public Manifest readManifest() {
+    return reader.readManifest(manifestFile);
+  }
+
+  @Benchmark
+  public long streamManifest() {
+    try (Stream<ManifestEntry> stream = reader.streamManifest(manifestFile)) {
+      return stream.count();
+    }
+  }
+
+  @Benchmark
+  public void writeManifest() {
+    writer.writeManifest(manifestEntries);
+  }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.benchmarks.load;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.icgc.dcc.metadata.client.model.Entity;
+import org.icgc.dcc.metadata.server.service.EntityService;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Closed loop load against a metadata server: each client issues its next request as soon as the previous one
+ * completes, choosing it from the {@link OperationMix}. Reads target entities registered earlier in the run.
+ * <p>
+ * Latencies are measured from request to response, so they do not include time requests would have waited had they
+ * been issued on a fixed schedule; compare throughput at equal client counts.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LoadGenerator {
+
+  /**
+   * Constants.
+   */
+  private static final int SEED_BATCH_SIZE = 1000;
+  private static final int PROJECT_COUNT = 50;
+  private static final String ACCESS = "controlled";
+
+  /**
+   * Configuration.
+   */
+  @NonNull
+  private final RestTemplate restTemplate;
+  @NonNull
+  private final String url;
+  @NonNull
+  private final OperationMix mix;
+  private final int threads;
+
+  /**
+   * State.
+   */
+  private final Map<Integer, Entity> registered = new ConcurrentHashMap<>();
+  private final AtomicInteger registeredCount = new AtomicInteger();
+  private final AtomicInteger sequence = new AtomicInteger();
+
+  /**
+   * Registers {@code count} entities through the bulk endpoint so reads have something to find.
+   */
+  public void seed(int count) {
+    val batch = new ArrayList<Entity>(SEED_BATCH_SIZE);
+    for (int i = 0; i < count; i++) {
+      batch.add(newEntity().setId(null));
+      if (batch.size() == SEED_BATCH_SIZE || i == count - 1) {
+        restTemplate.postForEntity(url + "/entities/_bulk", batch, String.class);
+        for (val entity : batch) {
+          addRegistered(entity.setId(EntityService.resolveFileId(entity.getGnosId(), entity.getFileName())));
+        }
+        batch.clear();
+      }
+    }
+
+    log.info("Seeded {} entities", count);
+  }
+
+  /**
+   * Applies load for {@code durationNanos} and reports on it.
+   */
+  @SneakyThrows
+  public LoadReport run(long durationNanos) {
+    checkState(registeredCount.get() > 0, "Entities must be seeded before the run");
+
+    val executor = Executors.newFixedThreadPool(threads);
+    try {
+      val start = System.nanoTime();
+      val deadline = start + durationNanos;
+
+      val clients = new ArrayList<Callable<Map<Operation, OperationStats>>>(threads);
+      for (int i = 0; i < threads; i++) {
+        clients.add(() -> runClient(deadline));
+      }
+
+      val stats = new EnumMap<Operation, OperationStats>(Operation.class);
+      for (val future : executor.invokeAll(clients)) {
+        for (val entry : getResult(future).entrySet()) {
+          stats.computeIfAbsent(entry.getKey(), operation -> new OperationStats()).merge(entry.getValue());
+        }
+      }
+
+      return new LoadReport(stats, System.nanoTime() - start);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Map<Operation, OperationStats> runClient(long deadline) {
+    val random = ThreadLocalRandom.current();
+    val stats = new EnumMap<Operation, OperationStats>(Operation.class);
+
+    while (System.nanoTime() < deadline) {
+      val operation = mix.next(random);
+
+      val start = System.nanoTime();
+      boolean error = false;
+      try {
+        execute(operation, random);
+      } catch (RestClientException e) {
+        error = true;
+      }
+      val latency = System.nanoTime() - start;
+
+      stats.computeIfAbsent(operation, o -> new OperationStats()).record(latency, error);
+    }
+
+    return stats;
+  }
+
+  private void execute(Operation operation, ThreadLocalRandom random) {
+    switch (operation) {
+    case POST:
+      val entity = restTemplate.postForObject(url + "/entities", newEntity(), Entity.class);
+      addRegistered(entity);
+      break;
+    case GET:
+      restTemplate.getForObject(url + "/entities/{id}", Entity.class, randomRegistered(random).getId());
+      break;
+    case HEAD:
+      restTemplate.headForHeaders(url + "/entities/{id}", randomRegistered(random).getId());
+      break;
+    case FIND:
+      restTemplate.getForObject(url + "/entities?gnosId={gnosId}", String.class, randomRegistered(random).getGnosId());
+      break;
+    default:
+      throw new IllegalStateException("Unsupported operation " + operation);
+    }
+  }
+
+  private Entity newEntity() {
+    val n = sequence.incrementAndGet();
+    return new Entity()
+        .setGnosId(UUID.randomUUID().toString())
+        .setFileName("file-" + n + ".bam")
+        .setProjectCode("LOAD-" + n % PROJECT_COUNT)
+        .setAccess(ACCESS);
+  }
+
+  private void addRegistered(Entity entity) {
+    // Published under the next index before the count makes it visible to readers
+    synchronized (registeredCount) {
+      registered.put(registeredCount.get(), entity);
+      registeredCount.incrementAndGet();
+    }
+  }
+
+  private Entity randomRegistered(ThreadLocalRandom random) {
+    return registered.get(random.nextInt(registeredCount.get()));
+  }
+
+  private static <T> T getResult(Future<T> future) throws InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.benchmarks.load;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Throughput, latency percentiles and error rates of a {@link LoadGenerator} run.
+ */
+@RequiredArgsConstructor
+public class LoadReport {
+
+  /**
+   * Constants.
+   */
+  private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 100 };
+  private static final String HEADER_FORMAT = "%-6s %10s %10s %8s %10s %10s %10s %10s %10s%n";
+  private static final String ROW_FORMAT = "%-6s %10d %10.1f %7.2f%% %10.2f %10.2f %10.2f %10.2f %10.2f%n";
+  private static final double NANOS_PER_MILLI = 1e6;
+
+  @NonNull
+  private final Map<Operation, OperationStats> stats;
+  private final long elapsedNanos;
+
+  public void print(PrintStream out) {
+    out.printf("Elapsed %.1f s%n", (double) elapsedNanos / SECONDS.toNanos(1));
+    out.printf(HEADER_FORMAT, "op", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+    val total = new OperationStats();
+    for (Entry<Operation, OperationStats> entry : stats.entrySet()) {
+      print(out, entry.getKey().getId(), entry.getValue());
+      total.merge(entry.getValue());
+    }
+    print(out, "total", total);
+  }
+
+  private void print(PrintStream out, String name, OperationStats stats) {
+    val throughput = stats.getCount() / (elapsedNanos / (double) SECONDS.toNanos(1));
+
+    val row = new Object[4 + PERCENTILES.length];
+    row[0] = name;
+    row[1] = stats.getCount();
+    row[2] = throughput;
+    row[3] = stats.getErrorRate() * 100;
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      row[4 + i] = stats.getPercentile(PERCENTILES[i]) / NANOS_PER_MILLI;
+    }
+
+    out.printf(ROW_FORMAT, row);
+  }
+
+}
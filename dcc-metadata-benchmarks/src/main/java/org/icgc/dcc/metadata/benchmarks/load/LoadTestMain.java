@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.benchmarks.load;
+
+import static java.lang.System.err;
+import static java.lang.System.out;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import org.icgc.dcc.metadata.server.ServerMain;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Starts a metadata server in-process on an in-memory Mongo, loads it with a mix of registrations and lookups and
+ * prints throughput, latency percentiles and error rates per operation.
+ */
+@Slf4j
+public class LoadTestMain {
+
+  /**
+   * Constants.
+   */
+  public static final String APPLICATION_NAME = "dcc-metadata-loadtest";
+  public static final String LOADTEST_PROFILE = "loadtest";
+
+  public static void main(String... args) {
+    val options = new LoadTestOptions();
+    val cli = new JCommander(options);
+    cli.setProgramName(APPLICATION_NAME);
+
+    try {
+      cli.parse(args);
+      if (options.help) {
+        usage(cli);
+        return;
+      }
+
+      if (options.threads < 1) {
+        err.println("The number of threads must be a positive number.");
+        return;
+      }
+
+      if (options.seed < 1) {
+        err.println("The number of seeded entities must be a positive number.");
+        return;
+      }
+
+      execute(options, OperationMix.parse(options.mix));
+    } catch (ParameterException | IllegalArgumentException e) {
+      err.println("Invalid parameter(s): " + e.getMessage());
+      usage(cli);
+    }
+  }
+
+  private static void execute(LoadTestOptions options, OperationMix mix) {
+    val profiles = options.profiles == null ? LOADTEST_PROFILE : LOADTEST_PROFILE + "," + options.profiles;
+    try (val context = (EmbeddedWebApplicationContext) new SpringApplicationBuilder(ServerMain.class,
+        EmbeddedMongoConfig.class).run("--spring.profiles.active=" + profiles)) {
+      val url = "http://localhost:" + context.getEmbeddedServletContainer().getPort();
+      val generator = new LoadGenerator(new RestTemplate(), url, mix, options.threads);
+      log.info("Running with {}", options);
+
+      generator.seed(options.seed);
+      generator.run(SECONDS.toNanos(options.warmup));
+
+      val report = generator.run(SECONDS.toNanos(options.duration));
+      out.printf("%d threads, mix %s%n", options.threads, mix);
+      report.print(out);
+    }
+  }
+
+  private static void usage(JCommander cli) {
+    val message = new StringBuilder();
+    cli.usage(message);
+    err.println(message.toString());
+  }
+
+}
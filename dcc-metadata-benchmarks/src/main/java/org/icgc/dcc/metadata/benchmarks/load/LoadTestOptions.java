@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.benchmarks.load;
+
+import com.beust.jcommander.Parameter;
+
+import lombok.ToString;
+
+@ToString
+public class LoadTestOptions {
+
+  /**
+   * Load
+   */
+  @Parameter(names = { "-t", "--threads" }, description = "The number of concurrent clients, each issuing requests back to back")
+  public int threads = 16;
+  @Parameter(names = { "-m", "--mix" }, description = "The relative weights of operations, e.g. post=10,get=40,head=40,find=10")
+  public String mix = "post=10,get=40,head=40,find=10";
+
+  /**
+   * Timing
+   */
+  @Parameter(names = { "-w", "--warmup" }, description = "The number of seconds to run before measuring")
+  public int warmup = 10;
+  @Parameter(names = { "-d", "--duration" }, description = "The number of seconds to measure")
+  public int duration = 30;
+
+  /**
+   * Data
+   */
+  @Parameter(names = { "-s", "--seed" }, description = "The number of entities registered before the warmup")
+  public int seed = 10000;
+
+  /**
+   * Server
+   */
+  @Parameter(names = { "-p", "--profiles" }, description = "Additional server profiles to activate, e.g. async")
+  public String profiles;
+
+  /**
+   * Info
+   */
+  @Parameter(names = { "-h", "--help" }, help = true, description = "Show help information")
+  public boolean help;
+
+}
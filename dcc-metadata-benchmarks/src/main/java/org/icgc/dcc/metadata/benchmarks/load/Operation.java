@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.benchmarks.load;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Requests issued by the {@link LoadGenerator}.
+ */
+@RequiredArgsConstructor
+public enum Operation {
+
+  /**
+   * {@code POST /entities} of a new entity.
+   */
+  POST("post"),
+
+  /**
+   * {@code GET /entities/{id}} of a registered entity.
+   */
+  GET("get"),
+
+  /**
+   * {@code HEAD /entities/{id}} of a registered entity.
+   */
+  HEAD("head"),
+
+  /**
+   * {@code GET /entities?gnosId=} of a registered entity.
+   */
+  FIND("find");
+
+  @Getter
+  private final String id;
+
+  public static Operation fromId(String id) {
+    for (val operation : values()) {
+      if (operation.id.equals(id)) {
+        return operation;
+      }
+    }
+
+    throw new IllegalArgumentException("Unknown operation '" + id + "'");
+  }
+
+}
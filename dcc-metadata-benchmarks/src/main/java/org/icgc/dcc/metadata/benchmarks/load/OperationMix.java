@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.benchmarks.load;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.google.common.base.Splitter;
+
+import lombok.val;
+
+/**
+ * Weighted choice of the next {@link Operation}, e.g. {@code post=10,get=40,head=40,find=10}.
+ */
+public class OperationMix {
+
+  private final Map<Operation, Integer> weights;
+  private final Operation[] operations;
+  private final int[] thresholds;
+  private final int total;
+
+  public static OperationMix parse(String spec) {
+    val weights = new EnumMap<Operation, Integer>(Operation.class);
+    for (val entry : Splitter.on(',').trimResults().omitEmptyStrings().withKeyValueSeparator('=').split(spec)
+        .entrySet()) {
+      val weight = Integer.parseInt(entry.getValue().trim());
+      checkArgument(weight >= 0, "Weight of '%s' must not be negative", entry.getKey());
+      weights.put(Operation.fromId(entry.getKey().trim()), weight);
+    }
+
+    return new OperationMix(weights);
+  }
+
+  private OperationMix(Map<Operation, Integer> weights) {
+    this.weights = weights;
+    this.operations = weights.keySet().toArray(new Operation[weights.size()]);
+    this.thresholds = new int[operations.length];
+
+    int total = 0;
+    for (int i = 0; i < operations.length; i++) {
+      total += weights.get(operations[i]);
+      thresholds[i] = total;
+    }
+    checkArgument(total > 0, "At least one operation must have a positive weight");
+    this.total = total;
+  }
+
+  public Operation next(Random random) {
+    val value = random.nextInt(total);
+    for (int i = 0; i < thresholds.length; i++) {
+      if (value < thresholds[i]) {
+        return operations[i];
+      }
+    }
+
+    throw new IllegalStateException();
+  }
+
+  @Override
+  public String toString() {
+    val spec = new StringBuilder();
+    for (val operation : operations) {
+      spec.append(spec.length() == 0 ? "" : ",").append(operation.getId()).append('=').append(weights.get(operation));
+    }
+
+    return spec.toString();
+  }
+
+}
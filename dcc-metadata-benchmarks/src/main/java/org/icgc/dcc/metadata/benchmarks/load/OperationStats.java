@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.benchmarks.load;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+
+/**
+ * Latencies and errors of one {@link Operation}. Each client records into its own instance which are merged once the
+ * run is over, so recording is not thread safe.
+ */
+public class OperationStats {
+
+  private long[] latencies = new long[1024];
+  private boolean sorted = true;
+
+  @Getter
+  private int count;
+  @Getter
+  private int errors;
+
+  public void record(long latencyNanos, boolean error) {
+    if (count == latencies.length) {
+      latencies = Arrays.copyOf(latencies, count * 2);
+    }
+    latencies[count++] = latencyNanos;
+    sorted = false;
+
+    if (error) {
+      errors++;
+    }
+  }
+
+  public void merge(OperationStats other) {
+    if (count + other.count > latencies.length) {
+      latencies = Arrays.copyOf(latencies, count + other.count);
+    }
+    System.arraycopy(other.latencies, 0, latencies, count, other.count);
+    count += other.count;
+    errors += other.errors;
+    sorted = false;
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return the latency in nanoseconds at or below which {@code percentile} percent of requests completed
+   */
+  public long getPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    if (!sorted) {
+      Arrays.sort(latencies, 0, count);
+      sorted = true;
+    }
+
+    int rank = (int) Math.ceil(percentile / 100 * count);
+    return latencies[Math.max(rank, 1) - 1];
+  }
+
+  public double getErrorRate() {
+    return count == 0 ? 0 : (double) errors / count;
+  }
+
+}
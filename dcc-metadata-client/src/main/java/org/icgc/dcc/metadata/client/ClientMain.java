@@ -24,6 +24,7 @@ import static java.lang.System.out;
 
 import org.icgc.dcc.metadata.client.cli.ClientOptions;
 import org.icgc.dcc.metadata.client.core.MetadataClient;
+import org.icgc.dcc.metadata.core.concurrent.VirtualThreads;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.web.client.HttpClientErrorException;
@@ -73,6 +74,16 @@ public class ClientMain {
         return;
       }
 
+      if (options.parallelism < 1) {
+        err.println("The parallelism must be a positive number.");
+        return;
+      }
+
+      if (options.virtualThreads && !VirtualThreads.isSupported()) {
+        err.println("Virtual threads require Java 21 or later.");
+        return;
+      }
+
       execute(options, args);
     } catch (ParameterException e) {
       log.error("Invalid parameter(s): ", e);
@@ -92,9 +103,14 @@ public class ClientMain {
     val context = SpringApplication.run(ClientMain.class, args);
     banner("Running with {}", options);
     val client = context.getBean(MetadataClient.class);
+    client.setVirtualThreads(options.virtualThreads);
     log.info("{}\n", repeat("-", 100));
 
-    client.register(options.manifestFile, options.outputDir);
+    if (options.precomputeIds) {
+      client.registerPrecomputed(options.manifestFile, options.outputDir, options.parallelism);
+    } else {
+      client.register(options.manifestFile, options.outputDir, options.parallelism);
+    }
   }
 
   private static void usage(JCommander cli) {
@@ -39,6 +39,18 @@ public class ClientOptions {
   @Parameter(names = { "-o", "--output-dir" }, help = true, description = "The output directory")
   public File outputDir;
 
+  /**
+   * Registration
+   */
+  @Parameter(names = { "-p", "--parallelism" }, description = "The maximum number of concurrent registration requests")
+  public int parallelism = 1;
+  @Parameter(names = { "--precompute-ids" }, description = "Compute object ids locally and write the output manifest "
+      + "without waiting for the server, registering entries in bulk in the background")
+  public boolean precomputeIds;
+  @Parameter(names = { "--virtual-threads" }, description = "Run registration workers on virtual threads, so high "
+      + "parallelism does not need as many platform threads. Requires Java 21 or later")
+  public boolean virtualThreads;
+
   /**
    * Info
    */
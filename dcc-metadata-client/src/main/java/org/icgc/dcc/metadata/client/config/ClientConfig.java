@@ -29,6 +29,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.retry.backoff.BackOffPolicy;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
@@ -59,10 +60,12 @@ public class ClientConfig {
   private ClientRetryListener clientRetryListener;
 
   @Bean
-  public RestTemplate restTemplate(@Value("${accessToken}") String accessToken) {
+  public RestTemplate restTemplate(@Value("${accessToken}") String accessToken,
+      ClientHttpRequestFactory requestFactory) {
     val details = new AuthorizationCodeResourceDetails();
     val clientContext = new DefaultOAuth2ClientContext(new DefaultOAuth2AccessToken(accessToken));
     val restTemplate = new OAuth2RestTemplate(details, clientContext);
+    restTemplate.setRequestFactory(requestFactory);
 
     return restTemplate;
   }
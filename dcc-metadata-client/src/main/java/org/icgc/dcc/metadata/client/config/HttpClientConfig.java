@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.client.config;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import lombok.val;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Pooled HTTP client backing the {@code RestTemplate}, so that TLS connections to the server are kept alive and reused
+ * across requests instead of being handshaken again for each one.
+ */
+@Configuration
+public class HttpClientConfig {
+
+  private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+  private static final long DEFAULT_KEEP_ALIVE = SECONDS.toMillis(15L);
+  private static final int DEFAULT_CONNECT_TIMEOUT = (int) SECONDS.toMillis(10L);
+  private static final int DEFAULT_READ_TIMEOUT = (int) SECONDS.toMillis(60L);
+
+  @Value("${server.connection.maxConnectionsPerRoute}")
+  private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+  @Value("${server.connection.keepAlive}")
+  private long keepAlive = DEFAULT_KEEP_ALIVE;
+  @Value("${server.connection.connectTimeout}")
+  private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+  @Value("${server.connection.readTimeout}")
+  private int readTimeout = DEFAULT_READ_TIMEOUT;
+
+  /**
+   * Overridden in development to accept self-signed certificates.
+   */
+  @Autowired(required = false)
+  private SSLConnectionSocketFactory sslSocketFactory = SSLConnectionSocketFactory.getSocketFactory();
+
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient httpClient() {
+    return createHttpClient(maxConnectionsPerRoute, keepAlive, connectTimeout, readTimeout, sslSocketFactory);
+  }
+
+  @Bean
+  public ClientHttpRequestFactory clientHttpRequestFactory(CloseableHttpClient httpClient) {
+    return new HttpComponentsClientHttpRequestFactory(httpClient);
+  }
+
+  /**
+   * Creates a pooled client. The client only ever talks to one server, so the total pool size is that of a single
+   * route. Idle connections are kept for at most {@code keepAlive} milliseconds, or less if the server says so, which
+   * should stay below the server's own keep-alive timeout so a pooled connection is not reused just as it is closed.
+   */
+  public static CloseableHttpClient createHttpClient(int maxConnectionsPerRoute, long keepAlive, int connectTimeout,
+      int readTimeout, SSLConnectionSocketFactory sslSocketFactory) {
+    val socketFactories = RegistryBuilder.<ConnectionSocketFactory> create()
+        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+        .register("https", sslSocketFactory)
+        .build();
+
+    val connectionManager = new PoolingHttpClientConnectionManager(socketFactories);
+    connectionManager.setMaxTotal(maxConnectionsPerRoute);
+    connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+    val requestConfig = RequestConfig.custom()
+        .setConnectTimeout(connectTimeout)
+        .setSocketTimeout(readTimeout)
+        .build();
+
+    return HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .setKeepAliveStrategy(createKeepAliveStrategy(keepAlive))
+        .evictExpiredConnections()
+        .evictIdleConnections(keepAlive, MILLISECONDS)
+        .disableCookieManagement()
+        .build();
+  }
+
+  private static ConnectionKeepAliveStrategy createKeepAliveStrategy(long keepAlive) {
+    return (response, context) -> {
+      long advertised = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+      return advertised > 0 ? Math.min(advertised, keepAlive) : keepAlive;
+    };
+  }
+
+}
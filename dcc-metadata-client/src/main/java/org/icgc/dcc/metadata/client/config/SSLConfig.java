@@ -17,9 +17,17 @@
  */
 package org.icgc.dcc.metadata.client.config;
 
+import lombok.val;
+
+import java.security.GeneralSecurityException;
+
 import javax.annotation.PostConstruct;
 
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.ssl.SSLContexts;
 import org.icgc.dcc.common.core.security.SSLCertificateValidation;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
@@ -35,4 +43,17 @@ public class SSLConfig {
     SSLCertificateValidation.disable();
   }
 
+  /**
+   * The pooled HTTP client does not go through {@code HttpsURLConnection}, so it needs its own trust-all socket
+   * factory.
+   */
+  @Bean
+  public SSLConnectionSocketFactory sslSocketFactory() throws GeneralSecurityException {
+    val sslContext = SSLContexts.custom()
+        .loadTrustMaterial(null, (chain, authType) -> true)
+        .build();
+
+    return new SSLConnectionSocketFactory(sslContext, NoopHostnameVerifier.INSTANCE);
+  }
+
 }
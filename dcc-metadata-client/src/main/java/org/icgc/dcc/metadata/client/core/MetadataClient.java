@@ -18,18 +18,36 @@
 package org.icgc.dcc.metadata.client.core;
 
 import static java.lang.System.out;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
 import static org.icgc.dcc.common.core.util.Formats.formatCount;
+import static org.icgc.dcc.metadata.client.model.RegistrationResult.Status.CONFLICT;
 
 import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import org.icgc.dcc.metadata.client.manifest.ManifestService;
 import org.icgc.dcc.metadata.client.manifest.StorageManifestWriter;
 import org.icgc.dcc.metadata.client.manifest.Manifest.ManifestEntry;
+import org.icgc.dcc.metadata.client.model.RegistrationResult;
 import org.icgc.dcc.metadata.client.service.EntityRegistrationService;
+import org.icgc.dcc.metadata.core.concurrent.VirtualThreads;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.val;
 import lombok.extern.slf4j.Slf4j;
@@ -38,36 +56,234 @@ import lombok.extern.slf4j.Slf4j;
 @Component
 public class MetadataClient {
 
+  /**
+   * Constants.
+   */
+  private static final int DEFAULT_PARALLELISM = 1;
+  private static final String WORKER_NAME_PREFIX = "registration-";
+
+  /**
+   * Number of entries checked for prior registration per request. Must not exceed the server's limit.
+   */
+  private static final int PREFLIGHT_SIZE = 1000;
+
+  /**
+   * Number of entries registered per request when object ids are precomputed.
+   */
+  private static final int BULK_SIZE = 500;
+
+  /**
+   * Number of registrations that may be queued per worker while waiting for an earlier entry to complete.
+   */
+  private static final int WINDOW_FACTOR = 4;
+
+  /**
+   * Configuration.
+   */
+  @Setter
+  private boolean virtualThreads;
+
   @Autowired
   private EntityRegistrationService registrationService;
 
   @Autowired
   private ManifestService manifestService;
 
-  @SneakyThrows
   public void register(File manifest, File outputDir) {
+    register(manifest, outputDir, DEFAULT_PARALLELISM);
+  }
+
+  /**
+   * Registers the entries of {@code manifest} as they are read and writes the storage manifest as they complete, so
+   * memory is bounded by the registration window rather than by the size of the manifest. If an earlier run over the
+   * same manifest was interrupted, the entries it wrote are not registered again.
+   */
+  @SneakyThrows
+  public void register(File manifest, File outputDir, int parallelism) {
+    out.printf("Reading %s %n", manifest.getCanonicalPath());
+
+    // A pass over the lines only, so that progress can be reported against the total while streaming
+    val total = manifestService.countUploadManifest(manifest);
+
+    try (val manifestFiles = manifestService.streamUploadManifest(manifest);
+        val manifestWriter = new StorageManifestWriter(outputDir)) {
+      // Skip entries whose object ids were written by an earlier, interrupted run
+      val entries = Iterators.peekingIterator(manifestFiles.iterator());
+      val resumed = manifestWriter.resume(entries);
+      if (resumed > 0) {
+        out.printf("Resuming after %d files registered by a previous run%n", resumed);
+      }
+
+      // Register entries in Manifest and write them with their object id
+      val count = register(entries, total - resumed, parallelism, manifestWriter::write);
+      manifestWriter.commit();
+
+      log.info("Registered {} files", formatCount(resumed + count));
+    }
+  }
+
+  /**
+   * Writes the storage manifest of {@code manifest} with object ids computed locally while registering its entries in
+   * bulk in the background, so writing is only held back by the server once the window of batches in flight is full.
+   * The manifest is committed once every entry is registered.
+   * <p>
+   * Entries are written before they are registered, so the partial manifest of an interrupted run is kept apart from
+   * that of {@link #register(File, File, int)} and is not resumed by either. Entries registered by an earlier run are
+   * simply reported as conflicts by the server.
+   */
+  @SneakyThrows
+  public void registerPrecomputed(File manifest, File outputDir, int parallelism) {
     out.printf("Reading %s %n", manifest.getCanonicalPath());
 
-    val manifestFiles = manifestService.getUploadManifest(manifest);
+    val executor = newWorkerPool(parallelism);
+
+    try (val manifestFiles = manifestService.streamUploadManifest(manifest);
+        val manifestWriter = StorageManifestWriter.forUnregistered(outputDir)) {
+      val window = parallelism * WINDOW_FACTOR;
+      val pending = new ArrayDeque<Future<List<RegistrationResult>>>(window);
+      val batch = new ArrayList<ManifestEntry>(BULK_SIZE);
+      int counter = 0;
+
+      val entries = manifestFiles.iterator();
+      while (entries.hasNext()) {
+        val file = entries.next();
+        file.setObjectId(registrationService.resolveObjectId(file));
+        manifestWriter.write(file);
 
-    log.info("Read {} files", formatCount(manifestFiles.getEntries()));
+        batch.add(file);
+        if (batch.size() == BULK_SIZE || !entries.hasNext()) {
+          if (pending.size() == window) {
+            counter += complete(pending.remove(), counter);
+          }
 
-    // Register entries in Manifest and update with object id
-    register(manifestFiles.getEntries());
+          val files = ImmutableList.copyOf(batch);
+          pending.add(executor.submit(() -> registrationService.registerAll(files)));
+          batch.clear();
+        }
+      }
 
-    // Need to add object id's to RegisterManifest
-    val manifestWriter = new StorageManifestWriter(outputDir);
+      while (!pending.isEmpty()) {
+        counter += complete(pending.remove(), counter);
+      }
+      manifestWriter.commit();
 
-    manifestWriter.writeManifest(manifestFiles.getEntries());
+      log.info("Registered {} files", formatCount(counter));
+    } finally {
+      // Cancels any outstanding registrations if one has failed
+      executor.shutdownNow();
+    }
   }
 
   protected void register(List<ManifestEntry> manifestFiles) {
-    int counter = 1;
+    register(manifestFiles, DEFAULT_PARALLELISM);
+  }
+
+  protected void register(List<ManifestEntry> manifestFiles, int parallelism) {
+    register(manifestFiles.iterator(), manifestFiles.size(), parallelism, file -> {});
+  }
+
+  /**
+   * Registers {@code manifestFiles} using up to {@code parallelism} concurrent requests, consuming them only as the
+   * window allows. Entries are completed in manifest order, so a slow request holds back reporting of the ones after
+   * it until the window is full. Entries are first checked in chunks against the server so that those already
+   * registered, e.g. by an earlier failed run, are skipped without a request each.
+   * 
+   * @param total the number of entries for progress reporting
+   * @param completed receives each registered entry in manifest order
+   * @return the number of registered entries
+   */
+  protected int register(Iterator<ManifestEntry> manifestFiles, int total, int parallelism,
+      Consumer<ManifestEntry> completed) {
+    val executor = newWorkerPool(parallelism);
+
+    try {
+      val window = parallelism * WINDOW_FACTOR;
+      val pending = new ArrayDeque<Future<ManifestEntry>>(window);
+      int counter = 1;
+
+      val chunks = Iterators.partition(manifestFiles, PREFLIGHT_SIZE);
+      while (chunks.hasNext()) {
+        val files = chunks.next();
+        val objectIds = files.stream().map(registrationService::resolveObjectId).collect(toList());
+        val registered = registrationService.findRegistered(objectIds);
+
+        for (int i = 0; i < files.size(); i++) {
+          if (pending.size() == window) {
+            completed.accept(complete(pending.remove(), counter++, total));
+          }
+
+          val file = files.get(i);
+          val objectId = objectIds.get(i);
+          if (registered.contains(objectId)) {
+            file.setObjectId(objectId);
+            pending.add(immediateFuture(file));
+          } else {
+            pending.add(executor.submit(() -> register(file)));
+          }
+        }
+      }
+
+      while (!pending.isEmpty()) {
+        completed.accept(complete(pending.remove(), counter++, total));
+      }
+
+      return counter - 1;
+    } finally {
+      // Cancels any outstanding registrations if one has failed
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * @return a pool of {@code parallelism} workers, on virtual threads if enabled
+   */
+  private ExecutorService newWorkerPool(int parallelism) {
+    if (virtualThreads) {
+      // Virtual threads are always daemon threads
+      return newFixedThreadPool(parallelism, VirtualThreads.newThreadFactory(WORKER_NAME_PREFIX));
+    }
+
+    return newFixedThreadPool(parallelism, new ThreadFactoryBuilder()
+        .setNameFormat(WORKER_NAME_PREFIX + "%d")
+        .setDaemon(true)
+        .build());
+  }
+
+  private ManifestEntry register(ManifestEntry file) {
+    val entity = registrationService.register(file);
+    file.setObjectId(entity.getId());
+
+    return file;
+  }
+
+  @SneakyThrows
+  private static int complete(Future<List<RegistrationResult>> registration, int counter) {
+    try {
+      val results = registration.get();
+      val conflicts = results.stream().filter(result -> result.getStatus() == CONFLICT).count();
+      out.printf("[%d-%d] Registered %d files, %d of which already were%n", counter + 1, counter + results.size(),
+          results.size(), conflicts);
+
+      return results.size();
+    } catch (ExecutionException e) {
+      // Retryable errors have already been retried by the registration service
+      log.error("Aborting registration after failure of entries {} onwards", counter + 1);
+      throw e.getCause();
+    }
+  }
+
+  @SneakyThrows
+  private static ManifestEntry complete(Future<ManifestEntry> registration, int counter, int total) {
+    val progress = counter + "/" + total;
+    try {
+      val file = registration.get();
+      out.printf("[%s] Registered %s%n", progress, file.getFileName());
 
-    for (val file : manifestFiles) {
-      val entity = registrationService.register(file);
-      file.setObjectId(entity.getId());
-      out.printf("[%d/%d] Registered %s%n", counter++, manifestFiles.size(), file.getFileName());
+      return file;
+    } catch (ExecutionException e) {
+      // Retryable errors have already been retried by the registration service
+      log.error("Aborting registration after failure of entry {}", progress);
+      throw e.getCause();
     }
   }
 
@@ -18,29 +18,35 @@
 package org.icgc.dcc.metadata.client.manifest;
 
 import static com.google.common.base.Preconditions.checkState;
-import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URL;
-import java.util.List;
+import java.nio.file.Files;
+import java.util.stream.Stream;
 
 import org.icgc.dcc.metadata.client.manifest.Manifest.ManifestEntry;
 
-import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableList.Builder;
-import com.google.common.io.LineProcessor;
-import com.google.common.io.Resources;
 
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.val;
 
+/**
+ * Reader of tab-delimited upload manifests with a header line and columns gnos id, project code, file name, MD5
+ * checksum and access.
+ */
 public class ManifestReader {
 
-  protected static final Splitter LINE_PARSER = Splitter.on('\t').trimResults();
+  /**
+   * Constants.
+   */
+  private static final char SEPARATOR = '\t';
+  private static final int COLUMN_COUNT = 5;
 
   @SneakyThrows
   public Manifest readManifest(@NonNull File manifestFile) {
@@ -49,53 +55,85 @@ public class ManifestReader {
 
   @SneakyThrows
   public Manifest readManifest(@NonNull URL manifestFile) {
-    return Resources.readLines(manifestFile, UTF_8, new ManifestLineProcessor());
+    try (val entries = streamManifest(manifestFile)) {
+      return new Manifest(ImmutableList.copyOf(entries.iterator()));
+    }
   }
 
-  private class ManifestLineProcessor implements LineProcessor<Manifest> {
+  @SneakyThrows
+  public Stream<ManifestEntry> streamManifest(@NonNull File manifestFile) {
+    return streamManifest(manifestFile.toURI().toURL());
+  }
 
-    int count = 0;
-    Builder<ManifestEntry> entries = ImmutableList.<ManifestEntry> builder();
+  /**
+   * Lazily parses the entries of {@code manifestFile} as they are consumed, so only the entries held on to by the
+   * caller are in memory.
+   * <p>
+   * The returned stream holds the file open and must be closed. I/O errors surface as {@link UncheckedIOException}.
+   */
+  @SneakyThrows
+  public Stream<ManifestEntry> streamManifest(@NonNull URL manifestFile) {
+    val reader = new BufferedReader(new InputStreamReader(manifestFile.openStream(), UTF_8));
+
+    return reader.lines()
+        .filter(line -> !line.isEmpty())
+        .skip(1) // Header
+        .map(this::parseEntry)
+        .onClose(() -> close(reader));
+  }
 
-    @Override
-    public boolean processLine(String line) throws IOException {
-      if (!isNullOrEmpty(line)) {
-        val values = parseLine(line);
+  /**
+   * Counts the entries of {@code manifestFile} without parsing them, e.g. to report progress before streaming it.
+   */
+  @SneakyThrows
+  public int countEntries(@NonNull File manifestFile) {
+    try (val reader = Files.newBufferedReader(manifestFile.toPath(), UTF_8)) {
+      long lines = reader.lines().filter(line -> !line.isEmpty()).count();
 
-        val header = count++ == 0;
-        if (!header) {
-          val entry = createEntry(values);
-          entries.add(entry);
-        }
-      }
-      return true;
+      // Header
+      return (int) Math.max(0, lines - 1);
     }
+  }
 
-    @Override
-    public Manifest getResult() {
-      return new Manifest(entries.build());
+  /**
+   * Parses {@code line} in place, allocating only the column values.
+   */
+  protected ManifestEntry parseEntry(String line) {
+    val values = new String[COLUMN_COUNT];
+
+    int start = 0;
+    int column = 0;
+    while (true) {
+      int end = line.indexOf(SEPARATOR, start);
+      if (end == -1) {
+        end = line.length();
+      }
+
+      if (column < COLUMN_COUNT) {
+        values[column] = line.substring(start, end).trim();
+      }
+      column++;
+
+      if (end == line.length()) {
+        break;
+      }
+      start = end + 1;
     }
-  }
+    checkState(column == COLUMN_COUNT, "Expected %s columns; found %s for line '%s'", COLUMN_COUNT, column, line);
 
-  protected ManifestEntry createEntry(List<String> values) {
     int i = 0;
     return ManifestEntry.builder()
-        .gnosId(values.get(i++))
-        .projectCode(values.get(i++))
-        .fileName(values.get(i++))
-        .fileMd5sum(values.get(i++))
-        .access(values.get(i++))
+        .gnosId(values[i++])
+        .projectCode(values[i++])
+        .fileName(values[i++])
+        .fileMd5sum(values[i++])
+        .access(values[i++])
         .build();
   }
 
-  protected List<String> parseLine(String line) {
-    val values = LINE_PARSER.splitToList(line);
-    val expectedColumns = 5;
-    val actualColumns = values.size();
-    checkState(expectedColumns == actualColumns, "Expected %s columns; found %s for line '%s'",
-        expectedColumns, actualColumns, line);
-
-    return values;
+  @SneakyThrows
+  private static void close(BufferedReader reader) {
+    reader.close();
   }
 
 }
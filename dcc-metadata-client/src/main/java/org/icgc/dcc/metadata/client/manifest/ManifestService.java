@@ -18,6 +18,9 @@
 package org.icgc.dcc.metadata.client.manifest;
 
 import java.io.File;
+import java.util.stream.Stream;
+
+import org.icgc.dcc.metadata.client.manifest.Manifest.ManifestEntry;
 
 import org.springframework.stereotype.Service;
 
@@ -33,4 +36,18 @@ public class ManifestService {
     return UPLOAD_READER.readManifest(manifestFile);
   }
 
+  /**
+   * @return the entries of {@code manifestFile}, parsed as they are consumed. Must be closed.
+   */
+  public Stream<ManifestEntry> streamUploadManifest(File manifestFile) {
+    return UPLOAD_READER.streamManifest(manifestFile);
+  }
+
+  /**
+   * @return the number of entries of {@code manifestFile}, without parsing them
+   */
+  public int countUploadManifest(File manifestFile) {
+    return UPLOAD_READER.countEntries(manifestFile);
+  }
+
 }
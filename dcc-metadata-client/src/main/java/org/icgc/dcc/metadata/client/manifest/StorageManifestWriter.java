@@ -17,56 +17,265 @@
  */
 package org.icgc.dcc.metadata.client.manifest;
 
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
-import java.nio.charset.StandardCharsets;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
 
 import org.icgc.dcc.metadata.client.manifest.Manifest.ManifestEntry;
 
-import com.google.common.io.Files;
+import com.google.common.collect.PeekingIterator;
 
-import lombok.Cleanup;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.val;
 
-@RequiredArgsConstructor
-public class StorageManifestWriter {
+/**
+ * Writes the storage manifest of registered entries, named by their GNOS id, to the output directory.
+ * <p>
+ * Entries are appended as they are passed to {@link #write(ManifestEntry)} into a {@code .partial} file which is
+ * periodically forced to disk and only atomically renamed to the manifest once {@link #commit()} is called. An aborted
+ * run therefore never leaves an incomplete manifest behind, and the next run over the same entries can
+ * {@link #resume(PeekingIterator)} from what was checkpointed.
+ * <p>
+ * Resumed entries are trusted to be registered. Writers of entries that are not registered yet must be created with
+ * {@link #forUnregistered(File)}, whose partial manifest is kept apart and never resumed.
+ */
+public class StorageManifestWriter implements Closeable {
 
   private final static String HEADER = "object-id\tfile-path\tmd5-checksum\n"; // Don't forget the line break!
+  private final static String PARTIAL_SUFFIX = ".partial";
+  private final static String UNREGISTERED_PARTIAL_SUFFIX = ".unregistered.partial";
+  private final static char SEPARATOR = '\t';
+  private final static char LINE_BREAK = '\n';
+  private final static int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Bounds on what is lost on a crash: written entries are forced to disk after this many entries or this much time,
+   * whichever comes first.
+   */
+  private final static int CHECKPOINT_ENTRIES = 1000;
+  private final static long CHECKPOINT_INTERVAL = SECONDS.toNanos(5);
 
-  @NonNull
   private final File outputDir;
+  private final String partialSuffix;
+
+  /**
+   * State.
+   */
+  private Path storageManifest;
+  private Path partialManifest;
+  private long resumeOffset;
+  private FileChannel channel;
+  private Writer writer;
+  private int uncheckpointed;
+  private long lastCheckpoint;
+
+  public StorageManifestWriter(@NonNull File outputDir) {
+    this(outputDir, PARTIAL_SUFFIX);
+  }
+
+  private StorageManifestWriter(File outputDir, String partialSuffix) {
+    this.outputDir = outputDir;
+    this.partialSuffix = partialSuffix;
+  }
+
+  /**
+   * @return a writer of entries written before they are registered, whose partial manifest cannot be resumed
+   */
+  public static StorageManifestWriter forUnregistered(@NonNull File outputDir) {
+    return new StorageManifestWriter(outputDir, UNREGISTERED_PARTIAL_SUFFIX);
+  }
 
   @SneakyThrows
   public void writeManifest(@NonNull List<ManifestEntry> list) {
-    if (list.isEmpty()) {
-      return;
+    try {
+      for (val entry : list) {
+        write(entry);
+      }
+
+      commit();
+    } finally {
+      close();
     }
+  }
 
-    // Name manifest with GNOS id
-    val gnosId = list.get(0).getGnosId();
+  /**
+   * Resumes the manifest partially written by an earlier run over the same {@code entries}. Entries already written
+   * are consumed from {@code entries} with their object ids set, and a line torn by a crash is dropped so that writing
+   * continues right after them.
+   * 
+   * @return the number of entries resumed
+   * @throws IllegalStateException if the partial manifest was not written from {@code entries}, or this writer's
+   * entries are {@link #forUnregistered(File) unregistered}
+   */
+  @SneakyThrows
+  public int resume(@NonNull PeekingIterator<ManifestEntry> entries) {
+    checkState(writer == null, "Cannot resume once writing has started");
+    checkState(partialSuffix.equals(PARTIAL_SUFFIX), "Cannot resume entries that are not known to be registered");
+    if (!entries.hasNext()) {
+      return 0;
+    }
+
+    locate(entries.peek().getGnosId());
+    if (!Files.exists(partialManifest)) {
+      return 0;
+    }
+
+    int count = 0;
+    try (val input = new BufferedInputStream(Files.newInputStream(partialManifest), BUFFER_SIZE)) {
+      val line = new ByteArrayOutputStream();
+      boolean header = true;
+      long offset = 0;
+
+      int b;
+      while ((b = input.read()) != -1) {
+        offset++;
+        if (b != LINE_BREAK) {
+          line.write(b);
+          continue;
+        }
+
+        if (!header) {
+          resume(line.toString(UTF_8.name()), entries);
+          count++;
+        }
+
+        header = false;
+        line.reset();
+        resumeOffset = offset;
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Appends {@code entry}. The first entry determines the name of the manifest.
+   */
+  @SneakyThrows
+  public void write(@NonNull ManifestEntry entry) {
+    if (writer == null) {
+      if (partialManifest == null) {
+        locate(entry.getGnosId());
+      }
+
+      open();
+    }
+
+    writer.write(entry.getObjectId());
+    writer.write(SEPARATOR);
+    writer.write(entry.getFileName());
+    writer.write(SEPARATOR);
+    writer.write(entry.getFileMd5sum());
+    writer.write(LINE_BREAK);
 
-    File storageManifest = new File(outputDir, gnosId);
+    if (++uncheckpointed >= CHECKPOINT_ENTRIES || System.nanoTime() - lastCheckpoint >= CHECKPOINT_INTERVAL) {
+      checkpoint();
+    }
+  }
 
-    @Cleanup
-    val writer = Files.newWriter(storageManifest, StandardCharsets.UTF_8);
-    writer.write(HEADER);
+  /**
+   * Completes the manifest. Nothing is written if no entries were written or resumed.
+   */
+  @SneakyThrows
+  public void commit() {
+    if (partialManifest == null) {
+      return;
+    }
 
-    for (val entity : list) {
-      writer.write(getStorageManifestLine(entity));
+    if (writer == null) {
+      // Everything was resumed, but a torn line may still need to be dropped
+      open();
     }
+
+    checkpoint();
+    close();
+    Files.move(partialManifest, storageManifest, ATOMIC_MOVE);
+
+    storageManifest = null;
+    partialManifest = null;
+    resumeOffset = 0;
   }
 
+  /**
+   * Releases the manifest being written, leaving it partial unless it was committed.
+   */
+  @Override
   @SneakyThrows
+  public void close() {
+    if (writer != null) {
+      // Also closes the channel
+      writer.close();
+      writer = null;
+      channel = null;
+    }
+  }
+
   public String getStorageManifestLine(ManifestEntry entry) {
-    return entry.getObjectId()
-        .concat("\t")
-        .concat(entry.getFileName())
-        .concat("\t")
-        .concat(entry.getFileMd5sum())
-        .concat("\n");
+    return new StringBuilder(entry.getObjectId().length() + entry.getFileName().length()
+        + entry.getFileMd5sum().length() + 3)
+            .append(entry.getObjectId())
+            .append(SEPARATOR)
+            .append(entry.getFileName())
+            .append(SEPARATOR)
+            .append(entry.getFileMd5sum())
+            .append(LINE_BREAK)
+            .toString();
+  }
+
+  private void locate(String gnosId) {
+    // Name manifest with GNOS id
+    storageManifest = new File(outputDir, gnosId).toPath();
+    partialManifest = new File(outputDir, gnosId + partialSuffix).toPath();
+  }
+
+  @SneakyThrows
+  private void open() {
+    channel = FileChannel.open(partialManifest, CREATE, WRITE);
+    channel.truncate(resumeOffset);
+    channel.position(resumeOffset);
+
+    writer = Channels.newWriter(channel, UTF_8.newEncoder(), BUFFER_SIZE);
+    if (resumeOffset == 0) {
+      writer.write(HEADER);
+    }
+
+    uncheckpointed = 0;
+    lastCheckpoint = System.nanoTime();
+  }
+
+  @SneakyThrows
+  private void checkpoint() {
+    writer.flush();
+    channel.force(false);
+
+    uncheckpointed = 0;
+    lastCheckpoint = System.nanoTime();
+  }
+
+  private void resume(String line, Iterator<ManifestEntry> entries) {
+    val values = line.split(String.valueOf(SEPARATOR), -1);
+    val entry = entries.hasNext() ? entries.next() : null;
+    checkState(values.length == 3 && entry != null && entry.getFileName().equals(values[1]),
+        "Partial manifest %s does not match the input manifest at line '%s'. Remove it to start over.",
+        partialManifest, line);
+
+    entry.setObjectId(values[0]);
   }
 
 }
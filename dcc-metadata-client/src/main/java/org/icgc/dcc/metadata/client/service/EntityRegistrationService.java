@@ -19,11 +19,20 @@ package org.icgc.dcc.metadata.client.service;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.util.stream.Collectors.toList;
 import static org.icgc.dcc.metadata.core.http.Headers.ENTITY_ID_HEADER;
 import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 import org.icgc.dcc.metadata.client.manifest.Manifest.ManifestEntry;
 import org.icgc.dcc.metadata.client.model.Entity;
+import org.icgc.dcc.metadata.client.model.RegistrationResult;
+import org.icgc.dcc.metadata.core.id.ObjectIds;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
@@ -33,6 +42,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import com.google.common.collect.ImmutableSet;
+
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.val;
@@ -66,6 +77,60 @@ public class EntityRegistrationService {
     }
   }
 
+  /**
+   * Registers {@code files} with a single bulk request. Files that are already registered are not an error.
+   * 
+   * @throws IllegalStateException if a file with a precomputed object id was registered under a different one
+   */
+  public List<RegistrationResult> registerAll(@NonNull List<ManifestEntry> files) {
+    val entities = files.stream().map(this::buildEntity).collect(toList());
+
+    log.info("Posting {} entities", entities.size());
+    val results = postAll(entities);
+    checkState(results.size() == files.size(), "Malformed response. Expected %s results; found %s", files.size(),
+        results.size());
+
+    for (int i = 0; i < results.size(); i++) {
+      val objectId = files.get(i).getObjectId();
+      checkState(objectId == null || objectId.equals(results.get(i).getId()),
+          "The server registered %s under id '%s' rather than the precomputed '%s'", entities.get(i),
+          results.get(i).getId(), objectId);
+    }
+
+    return results;
+  }
+
+  /**
+   * Finds which of {@code objectIds} are already registered with a single request. Servers that predate the request
+   * are taken to have none of them registered, so that each is registered as before.
+   */
+  @SneakyThrows
+  public Set<String> findRegistered(@NonNull Collection<String> objectIds) {
+    val url = baseUrl + "/" + "entities/_exists";
+    val keys = objectIds.stream().map(objectId -> new Entity().setId(objectId)).collect(toList());
+
+    String[] registered;
+    try {
+      registered = retryTemplate.execute(context -> restTemplate.postForEntity(url, keys, String[].class).getBody());
+    } catch (HttpClientErrorException e) {
+      if (e.getStatusCode() == NOT_FOUND) {
+        log.warn("The server does not support checking for registered entities. Registering all of them");
+        return ImmutableSet.of();
+      }
+      throw e;
+    }
+
+    return ImmutableSet.copyOf(registered);
+  }
+
+  /**
+   * @return the id the server registers {@code file} under, computed without contacting it
+   */
+  public String resolveObjectId(@NonNull ManifestEntry file) {
+    val entity = buildEntity(file);
+    return ObjectIds.resolve(entity.getGnosId(), entity.getFileName());
+  }
+
   Entity buildEntity(ManifestEntry file) {
     val fname = scrubFileName(file.getFileName());
     if (StringUtils.isEmpty(fname)) {
@@ -87,6 +152,13 @@ public class EntityRegistrationService {
     return retryTemplate.execute(context -> restTemplate.postForEntity(url, entity, Entity.class).getBody());
   }
 
+  @SneakyThrows
+  private List<RegistrationResult> postAll(List<Entity> entities) {
+    val url = baseUrl + "/" + "entities/_bulk";
+    return Arrays.asList(retryTemplate.execute(
+        context -> restTemplate.postForEntity(url, entities, RegistrationResult[].class).getBody()));
+  }
+
   private static Entity resolveEntityId(Entity entity, HttpHeaders responseHeaders) {
     val entityId = parseEntityId(responseHeaders);
     checkState(!isNullOrEmpty(entityId), "The server reported that %s already exists, but did not provide its ID",
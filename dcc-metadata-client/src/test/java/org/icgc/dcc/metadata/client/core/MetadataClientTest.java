@@ -17,11 +17,22 @@
  */
 package org.icgc.dcc.metadata.client.core;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.icgc.dcc.metadata.client.model.RegistrationResult.Status.CREATED;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -33,6 +44,7 @@ import org.icgc.dcc.metadata.client.manifest.ManifestService;
 import org.icgc.dcc.metadata.client.manifest.Manifest;
 import org.icgc.dcc.metadata.client.manifest.Manifest.ManifestEntry;
 import org.icgc.dcc.metadata.client.model.Entity;
+import org.icgc.dcc.metadata.client.model.RegistrationResult;
 import org.icgc.dcc.metadata.client.service.EntityRegistrationService;
 import org.junit.Rule;
 import org.junit.Test;
@@ -44,6 +56,7 @@ import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
 
 import lombok.val;
 
@@ -118,6 +131,52 @@ public class MetadataClientTest {
     assertThat(entries.get(2).getObjectId()).isEqualTo("object-id-3");
   }
 
+  @Test
+  public void test_parallel_registration_preserves_order() {
+    val entries = createManifestEntryStubs();
+    for (int i = 0; i < entries.size(); i++) {
+      val entry = entries.get(i);
+      val entity = new Entity().setId("object-id-" + (i + 1)).setGnosId(entry.getGnosId())
+          .setProjectCode(entry.getProjectCode()).setFileName(entry.getFileName()).setAccess(ACCESS);
+
+      when(restClient.register(entry)).thenReturn(entity);
+    }
+
+    sut.register(entries, 3);
+
+    assertThat(entries.get(0).getObjectId()).isEqualTo("object-id-1");
+    assertThat(entries.get(1).getObjectId()).isEqualTo("object-id-2");
+    assertThat(entries.get(2).getObjectId()).isEqualTo("object-id-3");
+  }
+
+  @Test
+  public void test_registered_entries_skipped() {
+    val entries = createManifestEntryStubs();
+    for (int i = 0; i < entries.size(); i++) {
+      when(restClient.resolveObjectId(entries.get(i))).thenReturn("object-id-" + (i + 1));
+    }
+    when(restClient.findRegistered(anyCollectionOf(String.class)))
+        .thenReturn(ImmutableSet.of("object-id-1", "object-id-3"));
+    when(restClient.register(entries.get(1))).thenReturn(new Entity().setId("object-id-2"));
+
+    sut.register(entries, 2);
+
+    verify(restClient, times(1)).register(any(ManifestEntry.class));
+    assertThat(entries.get(0).getObjectId()).isEqualTo("object-id-1");
+    assertThat(entries.get(1).getObjectId()).isEqualTo("object-id-2");
+    assertThat(entries.get(2).getObjectId()).isEqualTo("object-id-3");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void test_parallel_registration_aborts_on_failure() {
+    val entries = createManifestEntryStubs();
+    when(restClient.register(entries.get(0))).thenReturn(new Entity().setId("object-id-1"));
+    when(restClient.register(entries.get(1))).thenThrow(new IllegalStateException());
+    when(restClient.register(entries.get(2))).thenReturn(new Entity().setId("object-id-3"));
+
+    sut.register(entries, 2);
+  }
+
   @Test
   public void test_write_to_file() throws IOException {
 
@@ -171,6 +230,124 @@ public class MetadataClientTest {
     assertThat(row3.get(2)).isEqualToIgnoringCase("919e4e8ffb31339718e7be032e8c8a85");
   }
 
+  @Test
+  public void test_failed_registration_leaves_no_manifest() {
+    val manifestFile = new File("src/test/resources/register-manifest.txt");
+    val manifestEntries = manifestService.getUploadManifest(manifestFile);
+    val gnosId = setupMetadataStubs(manifestEntries);
+    when(restClient.register(manifestEntries.getEntries().get(2))).thenThrow(new IllegalStateException());
+
+    try {
+      sut.register(manifestFile, tmp.getRoot());
+      fail("Expected registration to fail");
+    } catch (IllegalStateException e) {
+      assertThat(new File(tmp.getRoot(), gnosId)).doesNotExist();
+    }
+  }
+
+  @Test
+  public void test_resume_skips_registered_entries() throws IOException {
+    val manifestFile = new File("src/test/resources/register-manifest.txt");
+    val manifestEntries = manifestService.getUploadManifest(manifestFile);
+    val gnosId = setupMetadataStubs(manifestEntries);
+
+    // Interrupted run that checkpointed the first entry and part of the second
+    val first = manifestEntries.getEntries().get(0);
+    val partial = "object-id\tfile-path\tmd5-checksum\n"
+        + "object-id-1\t" + first.getFileName() + "\t" + first.getFileMd5sum() + "\nobject-id-2\t";
+    Files.write(new File(tmp.getRoot(), gnosId + ".partial").toPath(), partial.getBytes(UTF_8));
+
+    sut.register(manifestFile, tmp.getRoot());
+
+    verify(restClient, never()).register(first);
+    assertThat(Files.readAllLines(new File(tmp.getRoot(), gnosId).toPath())).hasSize(4);
+    assertThat(new File(tmp.getRoot(), gnosId + ".partial")).doesNotExist();
+  }
+
+  @Test
+  public void test_progress_reports_total() throws IOException {
+    val manifestFile = new File("src/test/resources/register-manifest.txt");
+    setupMetadataStubs(manifestService.getUploadManifest(manifestFile));
+
+    val output = captureOutput(() -> sut.register(manifestFile, tmp.getRoot()));
+
+    assertThat(output).contains("[1/3] Registered", "[2/3] Registered", "[3/3] Registered");
+  }
+
+  @Test
+  public void test_progress_reports_total_after_resume() throws IOException {
+    val manifestFile = new File("src/test/resources/register-manifest.txt");
+    val manifestEntries = manifestService.getUploadManifest(manifestFile);
+    val gnosId = setupMetadataStubs(manifestEntries);
+    val first = manifestEntries.getEntries().get(0);
+    val partial = "object-id\tfile-path\tmd5-checksum\n"
+        + "object-id-1\t" + first.getFileName() + "\t" + first.getFileMd5sum() + "\n";
+    Files.write(new File(tmp.getRoot(), gnosId + ".partial").toPath(), partial.getBytes(UTF_8));
+
+    val output = captureOutput(() -> sut.register(manifestFile, tmp.getRoot()));
+
+    assertThat(output).contains("[1/2] Registered", "[2/2] Registered");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void test_precomputed_ids_written_and_registered_in_bulk() throws IOException {
+    val manifestFile = new File("src/test/resources/register-manifest.txt");
+    val gnosId = manifestService.getUploadManifest(manifestFile).getEntries().get(0).getGnosId();
+    when(restClient.resolveObjectId(any(ManifestEntry.class)))
+        .thenAnswer(invocation -> "object-id-" + invocation.getArgumentAt(0, ManifestEntry.class).getFileMd5sum());
+    when(restClient.registerAll(anyListOf(ManifestEntry.class)))
+        .thenAnswer(invocation -> ((List<ManifestEntry>) invocation.getArguments()[0]).stream()
+            .map(entry -> new RegistrationResult().setStatus(CREATED).setId(entry.getObjectId()))
+            .collect(Collectors.toList()));
+
+    sut.registerPrecomputed(manifestFile, tmp.getRoot(), 2);
+
+    verify(restClient, times(1)).registerAll(anyListOf(ManifestEntry.class));
+    verify(restClient, never()).register(any(ManifestEntry.class));
+    val contents = Files.readAllLines(new File(tmp.getRoot(), gnosId).toPath());
+    assertThat(contents).hasSize(4);
+    assertThat(parseLine(contents.get(1)).get(0)).isEqualTo("object-id-c59cfd7bd38ccdb334c70f675ae18c76");
+  }
+
+  private static String captureOutput(Runnable action) {
+    val original = System.out;
+    val output = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(output, true));
+    try {
+      action.run();
+    } finally {
+      System.setOut(original);
+    }
+
+    return new String(output.toByteArray(), UTF_8);
+  }
+
+  @Test
+  public void test_interrupted_precomputed_run_not_resumed() throws IOException {
+    val manifestFile = new File("src/test/resources/register-manifest.txt");
+    val gnosId = setupMetadataStubs(manifestService.getUploadManifest(manifestFile));
+    when(restClient.resolveObjectId(any(ManifestEntry.class))).thenReturn("precomputed-id");
+    when(restClient.registerAll(anyListOf(ManifestEntry.class))).thenThrow(new IllegalStateException());
+
+    // Entries are written before their registration fails
+    try {
+      sut.registerPrecomputed(manifestFile, tmp.getRoot(), 1);
+      fail("Expected registration to fail");
+    } catch (IllegalStateException e) {
+      assertThat(new File(tmp.getRoot(), gnosId)).doesNotExist();
+    }
+
+    sut.register(manifestFile, tmp.getRoot());
+
+    // Registered rather than resumed
+    verify(restClient, times(3)).register(any(ManifestEntry.class));
+    val contents = Files.readAllLines(new File(tmp.getRoot(), gnosId).toPath());
+    assertThat(contents).hasSize(4);
+    assertThat(parseLine(contents.get(1)).get(0)).isEqualTo("object-id-1");
+    assertThat(parseLine(contents.get(3)).get(0)).isEqualTo("object-id-3");
+  }
+
   protected String setupMetadataStubs(Manifest manifest) {
     String gnosId = "";
     int count = 1;
@@ -17,14 +17,21 @@
  */
 package org.icgc.dcc.metadata.client.manifest;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
+import java.io.IOException;
+
+import org.icgc.dcc.metadata.client.manifest.Manifest.ManifestEntry;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import com.google.common.io.Files;
+
 import lombok.val;
 
 public class ManifestServiceTest {
@@ -41,4 +48,37 @@ public class ManifestServiceTest {
     assertThat(registerManifest.getEntries().size()).isEqualTo(3);
   }
 
+  @Test
+  public void test_stream_input_manifest_format() {
+    val sut = new ManifestService();
+    val manifestFile = new File("src/test/resources/register-manifest.txt");
+
+    try (val entries = sut.streamUploadManifest(manifestFile)) {
+      assertThat(entries.map(ManifestEntry::getAccess).collect(toList())).containsExactly("controlled", "controlled",
+          "controlled");
+    }
+  }
+
+  @Test
+  public void test_count_input_manifest() throws IOException {
+    val sut = new ManifestService();
+    val manifestFile = tmp.newFile();
+    Files.write("gnos-id\tproject-code\tfilename\tmd5sum\taccess\n\ng1\tP\tf1\tm1\tc\ng1\tP\tf2\tm2\tc\n", manifestFile,
+        UTF_8);
+
+    assertThat(sut.countUploadManifest(manifestFile)).isEqualTo(2);
+    assertThat(sut.countUploadManifest(new File("src/test/resources/register-manifest.txt"))).isEqualTo(3);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void test_stream_input_manifest_missing_column() throws IOException {
+    val sut = new ManifestService();
+    val manifestFile = tmp.newFile();
+    Files.write("gnos-id\tproject-code\tfilename\tmd5sum\taccess\ngnos1\tPROJ\tfile1\tmd5_1\n", manifestFile, UTF_8);
+
+    try (val entries = sut.streamUploadManifest(manifestFile)) {
+      entries.count();
+    }
+  }
+
 }
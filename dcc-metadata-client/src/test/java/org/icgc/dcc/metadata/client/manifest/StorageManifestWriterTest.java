@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.client.manifest;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.icgc.dcc.metadata.client.manifest.Manifest.ManifestEntry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.io.Files;
+
+import lombok.val;
+
+public class StorageManifestWriterTest {
+
+  private static final String GNOS_ID = "gnos1";
+  private static final String HEADER = "object-id\tfile-path\tmd5-checksum\n";
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void test_write_commits_manifest() throws IOException {
+    val sut = new StorageManifestWriter(tmp.getRoot());
+
+    sut.writeManifest(createEntries("object-id-1", "object-id-2"));
+
+    assertThat(read(GNOS_ID)).isEqualTo(HEADER + "object-id-1\tfile1\tmd5_1\nobject-id-2\tfile2\tmd5_2\n");
+    assertThat(new File(tmp.getRoot(), GNOS_ID + ".partial")).doesNotExist();
+  }
+
+  @Test
+  public void test_resume_skips_written_entries_and_drops_torn_line() throws IOException {
+    write(GNOS_ID + ".partial", HEADER + "object-id-1\tfile1\tmd5_1\nobject-id-2\tfi");
+    val entries = createEntries(null, null);
+    val iterator = Iterators.peekingIterator(entries.iterator());
+
+    try (val sut = new StorageManifestWriter(tmp.getRoot())) {
+      assertThat(sut.resume(iterator)).isEqualTo(1);
+      assertThat(entries.get(0).getObjectId()).isEqualTo("object-id-1");
+      assertThat(iterator.next()).isSameAs(entries.get(1));
+
+      entries.get(1).setObjectId("object-id-2");
+      sut.write(entries.get(1));
+      sut.commit();
+    }
+
+    assertThat(read(GNOS_ID)).isEqualTo(HEADER + "object-id-1\tfile1\tmd5_1\nobject-id-2\tfile2\tmd5_2\n");
+  }
+
+  @Test
+  public void test_resume_fully_written() throws IOException {
+    write(GNOS_ID + ".partial", HEADER + "object-id-1\tfile1\tmd5_1\nobject-id-2\tfile2\tmd5_2\n");
+    val iterator = Iterators.peekingIterator(createEntries(null, null).iterator());
+
+    try (val sut = new StorageManifestWriter(tmp.getRoot())) {
+      assertThat(sut.resume(iterator)).isEqualTo(2);
+      assertThat(iterator.hasNext()).isFalse();
+
+      sut.commit();
+    }
+
+    assertThat(read(GNOS_ID)).isEqualTo(HEADER + "object-id-1\tfile1\tmd5_1\nobject-id-2\tfile2\tmd5_2\n");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void test_resume_mismatched_manifest() throws IOException {
+    write(GNOS_ID + ".partial", HEADER + "object-id-1\tother-file\tmd5_1\n");
+
+    try (val sut = new StorageManifestWriter(tmp.getRoot())) {
+      sut.resume(Iterators.peekingIterator(createEntries(null, null).iterator()));
+    }
+  }
+
+  @Test
+  public void test_unregistered_partial_kept_apart() throws IOException {
+    try (val sut = StorageManifestWriter.forUnregistered(tmp.getRoot())) {
+      sut.write(createEntries("object-id-1", "object-id-2").get(0));
+    }
+
+    // Interrupted before commit
+    assertThat(new File(tmp.getRoot(), GNOS_ID + ".partial")).doesNotExist();
+    try (val sut = new StorageManifestWriter(tmp.getRoot())) {
+      assertThat(sut.resume(Iterators.peekingIterator(createEntries(null, null).iterator()))).isZero();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void test_unregistered_not_resumed() throws IOException {
+    try (val sut = StorageManifestWriter.forUnregistered(tmp.getRoot())) {
+      sut.resume(Iterators.peekingIterator(createEntries(null, null).iterator()));
+    }
+  }
+
+  private static List<ManifestEntry> createEntries(String objectId1, String objectId2) {
+    return ImmutableList.of(
+        ManifestEntry.builder().objectId(objectId1).gnosId(GNOS_ID).fileName("file1").fileMd5sum("md5_1").build(),
+        ManifestEntry.builder().objectId(objectId2).gnosId(GNOS_ID).fileName("file2").fileMd5sum("md5_2").build());
+  }
+
+  private void write(String fileName, String content) throws IOException {
+    Files.write(content, new File(tmp.getRoot(), fileName), UTF_8);
+  }
+
+  private String read(String fileName) throws IOException {
+    return Files.toString(new File(tmp.getRoot(), fileName), UTF_8);
+  }
+
+}
@@ -19,9 +19,14 @@ package org.icgc.dcc.metadata.client.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.FORBIDDEN;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 import org.icgc.dcc.metadata.client.core.MetadataClientTest;
+import org.icgc.dcc.metadata.core.id.ObjectIds;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -31,8 +36,12 @@ import org.springframework.retry.RecoveryCallback;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.RetryState;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import com.google.common.collect.ImmutableList;
+
 import lombok.val;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -69,6 +78,12 @@ public class EntityRegistrationServiceTest {
     assertThat(entity.getFileName()).isEqualTo(FILE_NAME);
   }
 
+  @Test
+  public void test_resolve_object_id_removes_path() {
+    val entry = MetadataClientTest.createEntry("gnos-id-1", "PROJ", PATH_NAME, "md5", "controlled");
+    assertThat(sut.resolveObjectId(entry)).isEqualTo(ObjectIds.resolve("gnos-id-1", FILE_NAME));
+  }
+
   @SuppressWarnings("unchecked")
   @Test
   public void test_register_removes_path() throws Throwable {
@@ -84,4 +99,22 @@ public class EntityRegistrationServiceTest {
     assertThat(result.getFileName()).isEqualTo(FILE_NAME);
   }
 
+  @Test
+  public void test_find_registered_not_supported() {
+    ReflectionTestUtils.setField(sut, "retryTemplate", new RetryTemplate());
+    when(restTemplate.postForEntity(anyString(), any(), eq(String[].class)))
+        .thenThrow(new HttpClientErrorException(NOT_FOUND));
+
+    assertThat(sut.findRegistered(ImmutableList.of("object-id-1", "object-id-2"))).isEmpty();
+  }
+
+  @Test(expected = HttpClientErrorException.class)
+  public void test_find_registered_forbidden() {
+    ReflectionTestUtils.setField(sut, "retryTemplate", new RetryTemplate());
+    when(restTemplate.postForEntity(anyString(), any(), eq(String[].class)))
+        .thenThrow(new HttpClientErrorException(FORBIDDEN));
+
+    sut.findRegistered(ImmutableList.of("object-id-1"));
+  }
+
 }
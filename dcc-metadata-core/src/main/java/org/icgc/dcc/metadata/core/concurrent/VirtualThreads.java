@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.core.concurrent;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+
+/**
+ * Access to virtual threads, which are only available from Java 21 while the project targets Java 8.
+ * <p>
+ * A virtual thread blocked on I/O releases its carrier thread, so many blocked tasks cost memory rather than platform
+ * threads. Blocking while holding a monitor ({@code synchronized}) still pins the carrier, so the gain depends on the
+ * libraries being called.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class VirtualThreads {
+
+  /**
+   * State.
+   */
+  private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+
+  /**
+   * @return whether the running JVM supports virtual threads
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * @param prefix the name prefix of created threads, followed by a counter
+   * @return a factory of virtual threads
+   * @throws IllegalStateException if the running JVM does not support virtual threads
+   */
+  @SneakyThrows
+  public static ThreadFactory newThreadFactory(String prefix) {
+    checkSupported();
+
+    Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+    Object builder = OF_VIRTUAL.invoke(null);
+    builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+
+    return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+  }
+
+  /**
+   * @return an executor starting a new virtual thread for each task
+   * @throws IllegalStateException if the running JVM does not support virtual threads
+   */
+  @SneakyThrows
+  public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+    checkSupported();
+
+    Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+    return (ExecutorService) method.invoke(null, newThreadFactory(prefix));
+  }
+
+  private static void checkSupported() {
+    if (!isSupported()) {
+      throw new IllegalStateException(
+          "Virtual threads require Java 21 or later, running on " + System.getProperty("java.version"));
+    }
+  }
+
+  private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+    try {
+      return type.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+}
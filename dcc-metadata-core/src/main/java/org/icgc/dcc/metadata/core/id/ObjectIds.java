@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.core.id;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.security.MessageDigest;
+import java.util.UUID;
+
+import org.icgc.dcc.common.core.util.UUID5;
+
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+
+/**
+ * Derivation of object ids, shared by the server that assigns them and clients that precompute them.
+ * <p>
+ * An object id is the name based (version 5) UUID of {@code gnosId/fileName} in the {@link UUID5#getNamespace() DCC
+ * namespace}, i.e. {@code UUID5.fromUTF8(UUID5.getNamespace(), gnosId + "/" + fileName).toString()}. It must never
+ * change, as registered and uploaded objects are identified by it. Unlike {@link UUID5} this reuses a digest and
+ * buffers per thread, so deriving an id only allocates the resulting string.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class ObjectIds {
+
+  /**
+   * Constants.
+   */
+  private static final char SEPARATOR = '/';
+  private static final int UUID_LENGTH = 16;
+  private static final int SHA1_LENGTH = 20;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private static final byte[] NAMESPACE = toBytes(UUID5.getNamespace());
+
+  /**
+   * State.
+   */
+  private static final ThreadLocal<Digester> DIGESTER = ThreadLocal.withInitial(Digester::new);
+
+  /**
+   * @param fileName the name of the file, without any path
+   * @return the object id of {@code fileName} in GNOS bundle {@code gnosId}
+   */
+  public static String resolve(String gnosId, String fileName) {
+    return DIGESTER.get().digest(gnosId, fileName);
+  }
+
+  private static byte[] toBytes(UUID uuid) {
+    byte[] bytes = new byte[UUID_LENGTH];
+    long msb = uuid.getMostSignificantBits();
+    long lsb = uuid.getLeastSignificantBits();
+    for (int i = 7; i >= 0; i--) {
+      bytes[i] = (byte) msb;
+      bytes[8 + i] = (byte) lsb;
+      msb >>>= 8;
+      lsb >>>= 8;
+    }
+
+    return bytes;
+  }
+
+  private static boolean isAscii(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Per thread, as {@link MessageDigest}s are stateful.
+   */
+  private static class Digester {
+
+    private final MessageDigest sha1 = newSha1();
+    private final byte[] hash = new byte[SHA1_LENGTH];
+    private final char[] text = new char[36];
+    private byte[] name = new byte[256];
+
+    @SneakyThrows
+    String digest(String gnosId, String fileName) {
+      sha1.update(NAMESPACE);
+      if (isAscii(gnosId) && isAscii(fileName)) {
+        int length = gnosId.length() + 1 + fileName.length();
+        if (name.length < length) {
+          name = new byte[Math.max(length, 2 * name.length)];
+        }
+
+        int offset = putAscii(gnosId, 0);
+        name[offset++] = (byte) SEPARATOR;
+        offset = putAscii(fileName, offset);
+        sha1.update(name, 0, offset);
+      } else {
+        // Rare enough not to bother encoding in place
+        sha1.update((gnosId + SEPARATOR + fileName).getBytes(UTF_8));
+      }
+      sha1.digest(hash, 0, SHA1_LENGTH);
+
+      // Version 5, IETF variant
+      hash[6] &= 0x0f;
+      hash[6] |= 0x50;
+      hash[8] &= 0x3f;
+      hash[8] |= 0x80;
+
+      return format();
+    }
+
+    private int putAscii(String value, int offset) {
+      for (int i = 0; i < value.length(); i++) {
+        name[offset++] = (byte) value.charAt(i);
+      }
+
+      return offset;
+    }
+
+    /**
+     * Formats the leading 16 bytes of the hash like {@link UUID#toString()}.
+     */
+    private String format() {
+      int position = 0;
+      for (int i = 0; i < UUID_LENGTH; i++) {
+        if (i == 4 || i == 6 || i == 8 || i == 10) {
+          text[position++] = '-';
+        }
+        text[position++] = HEX_DIGITS[(hash[i] >> 4) & 0x0f];
+        text[position++] = HEX_DIGITS[hash[i] & 0x0f];
+      }
+
+      return new String(text);
+    }
+
+    @SneakyThrows
+    private static MessageDigest newSha1() {
+      return MessageDigest.getInstance("SHA-1");
+    }
+
+  }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.core.concurrent;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import lombok.val;
+
+public class VirtualThreadsTest {
+
+  @Test
+  public void test_thread_per_task_executor() throws Exception {
+    assumeTrue(VirtualThreads.isSupported());
+
+    Callable<Thread> currentThread = Thread::currentThread;
+    val executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+    try {
+      val thread = executor.submit(currentThread).get(10, SECONDS);
+
+      assertThat(thread.getName()).startsWith("test-");
+      assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void test_unsupported() {
+    assumeFalse(VirtualThreads.isSupported());
+
+    VirtualThreads.newThreadFactory("test-");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void test_unsupported_executor() {
+    assumeFalse(VirtualThreads.isSupported());
+
+    VirtualThreads.newThreadPerTaskExecutor("test-");
+  }
+
+}
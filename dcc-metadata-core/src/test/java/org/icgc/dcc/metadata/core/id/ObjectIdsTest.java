@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.core.id;
+
+import static com.google.common.base.Strings.repeat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.icgc.dcc.common.core.util.UUID5;
+import org.junit.Test;
+
+public class ObjectIdsTest {
+
+  private static final String GNOS_ID = "70b07570-0571-11e5-a6c0-1697f925ec7b";
+
+  @Test
+  public void test_resolve_matches_uuid5() {
+    assertMatchesUuid5(GNOS_ID, "file.bam");
+    assertMatchesUuid5(GNOS_ID, "file.bam.bai");
+    assertMatchesUuid5("", "");
+  }
+
+  @Test
+  public void test_resolve_non_ascii() {
+    assertMatchesUuid5(GNOS_ID, "fichier-é.bam");
+    assertMatchesUuid5(GNOS_ID, "文件.bam");
+  }
+
+  @Test
+  public void test_resolve_long_name() {
+    assertMatchesUuid5(GNOS_ID, repeat("x", 1000) + ".bam");
+    assertMatchesUuid5(GNOS_ID, "file.bam");
+  }
+
+  private static void assertMatchesUuid5(String gnosId, String fileName) {
+    assertThat(ObjectIds.resolve(gnosId, fileName))
+        .isEqualTo(UUID5.fromUTF8(UUID5.getNamespace(), gnosId + "/" + fileName).toString());
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.config;
+
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import lombok.val;
+
+/**
+ * Executor and connector limits of the non-blocking read path.
+ * 
+ * @see org.icgc.dcc.metadata.server.controller.AsyncEntityReadController
+ */
+@Configuration
+@Profile("async")
+public class AsyncConfig {
+
+  /**
+   * Constants.
+   */
+  public static final String ENTITY_READ_EXECUTOR = "entityReadExecutor";
+
+  /**
+   * Configuration.
+   */
+  @Value("${async.reads.threads}")
+  private int threads;
+  @Value("${async.reads.queueCapacity}")
+  private int queueCapacity;
+  @Value("${async.maxConnections}")
+  private int maxConnections;
+
+  @Bean(name = ENTITY_READ_EXECUTOR)
+  public ThreadPoolTaskExecutor entityReadExecutor() {
+    val executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("entity-read-");
+
+    return executor;
+  }
+
+  /**
+   * Connections waiting on a read hold no request thread, so allow many more of them than there are threads.
+   */
+  @Bean
+  public EmbeddedServletContainerCustomizer maxConnectionsCustomizer() {
+    return container -> {
+      if (container instanceof TomcatEmbeddedServletContainerFactory) {
+        ((TomcatEmbeddedServletContainerFactory) container).addConnectorCustomizers(
+            connector -> ((AbstractProtocol<?>) connector.getProtocolHandler()).setMaxConnections(maxConnections));
+      }
+    };
+  }
+
+}
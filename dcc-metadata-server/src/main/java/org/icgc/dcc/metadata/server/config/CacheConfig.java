@@ -17,22 +17,30 @@
  */
 package org.icgc.dcc.metadata.server.config;
 
-import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
-import java.util.concurrent.ConcurrentMap;
+import java.util.List;
 
-import org.springframework.cache.Cache;
+import org.icgc.dcc.metadata.server.util.CacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCache;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.guava.GuavaCache;
+import org.springframework.cache.guava.GuavaCacheManager;
 import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.cache.interceptor.SimpleKeyGenerator;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+
+import lombok.val;
 
 /**
  * Server wide caching configuration.
@@ -45,30 +53,30 @@ public class CacheConfig extends CachingConfigurerSupport {
   /**
    * Constants.
    */
-  private static final int CACHE_TTL_MINUTES = 60;
+  public static final String ENTITIES_CACHE = "entities";
+  public static final String ENTITY_EXISTS_CACHE = "entityExists";
+  private static final String METRIC_PREFIX = "cache.";
+
+  /**
+   * Configuration.
+   */
+  @Value("${cache.maxSize}")
+  private long maxSize;
+  @Value("${cache.ttl}")
+  private long ttl;
 
+  @Bean
   @Override
   public CacheManager cacheManager() {
-    return new ConcurrentMapCacheManager() {
-
-      @Override
-      protected Cache createConcurrentMapCache(String name) {
-        return new ConcurrentMapCache(name, createStore(), false);
-      }
-
-      /**
-       * @return Guava cache instance with a suitable TTL.
-       */
-      private ConcurrentMap<Object, Object> createStore() {
-        return CacheBuilder
-            .newBuilder()
-            .expireAfterWrite(CACHE_TTL_MINUTES, MINUTES)
-            .maximumSize(100)
-            .build()
-            .asMap();
-      }
+    val cacheManager = new GuavaCacheManager();
+    cacheManager.setAllowNullValues(false);
+    cacheManager.setCacheBuilder(CacheBuilder
+        .newBuilder()
+        .expireAfterWrite(ttl, MILLISECONDS)
+        .maximumSize(maxSize)
+        .recordStats());
 
-    };
+    return cacheManager;
   }
 
   @Override
@@ -76,4 +84,20 @@ public class CacheConfig extends CachingConfigurerSupport {
     return new SimpleKeyGenerator();
   }
 
-}
\ No newline at end of file
+  /**
+   * Exposes the statistics of each cache on the metrics endpoint, e.g. {@code cache.entities.eviction}.
+   */
+  @Bean
+  public PublicMetrics cacheMetrics(CacheManager cacheManager) {
+    return () -> {
+      List<Metric<?>> metrics = Lists.newArrayList();
+      for (String name : cacheManager.getCacheNames()) {
+        Cache<Object, Object> cache = ((GuavaCache) cacheManager.getCache(name)).getNativeCache();
+        metrics.addAll(CacheMetrics.getMetrics(METRIC_PREFIX + name, cache.stats(), cache.size()));
+      }
+
+      return metrics;
+    };
+  }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.config;
+
+import org.icgc.dcc.metadata.server.metrics.ServerMetrics;
+import org.icgc.dcc.metadata.server.metrics.TimingInterceptor;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.icgc.dcc.metadata.server.service.EntityService;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
+
+import lombok.val;
+
+/**
+ * Latency histograms of the operations behind each endpoint.
+ * <p>
+ * Wraps the repository, the entity service and the remote token services (if secure) in proxies that time every call.
+ * Request latencies are recorded separately by {@link org.icgc.dcc.metadata.server.filter.RequestMetricsFilter}.
+ */
+@Configuration
+public class MetricsConfig {
+
+  /**
+   * Constants.
+   */
+  public static final String REPOSITORY_METRIC = "repository_operation_seconds";
+  public static final String SERVICE_METRIC = "entity_service_seconds";
+  public static final String AUTH_METRIC = "auth_token_check_seconds";
+  public static final String AUTH_FAILURES_METRIC = "auth_failures_total";
+
+  /**
+   * Static so that it is registered before, and applies to, the beans it times.
+   */
+  @Bean
+  public static BeanPostProcessor timingPostProcessor(ServerMetrics metrics) {
+    return new BeanPostProcessor() {
+
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        return bean;
+      }
+
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof EntityRepository) {
+          val factory = new ProxyFactory();
+          factory.setTarget(bean);
+          factory.addInterface(EntityRepository.class);
+          factory.addAdvice(new TimingInterceptor(metrics, REPOSITORY_METRIC));
+
+          return factory.getProxy();
+        }
+        if (bean instanceof EntityService) {
+          return proxyTargetClass(bean, new TimingInterceptor(metrics, SERVICE_METRIC));
+        }
+        if (bean instanceof RemoteTokenServices) {
+          return proxyTargetClass(bean,
+              new TimingInterceptor(metrics, AUTH_METRIC, metrics.counter(AUTH_FAILURES_METRIC)));
+        }
+
+        return bean;
+      }
+
+    };
+  }
+
+  private static Object proxyTargetClass(Object bean, TimingInterceptor interceptor) {
+    val factory = new ProxyFactory(bean);
+    factory.setProxyTargetClass(true);
+    factory.addAdvice(interceptor);
+
+    return factory.getProxy();
+  }
+
+}
@@ -24,6 +24,7 @@ import lombok.val;
 
 import org.icgc.dcc.metadata.core.retry.ClientRetryListener;
 import org.icgc.dcc.metadata.core.retry.DefaultRetryListener;
+import org.icgc.dcc.metadata.server.metrics.ServerMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -33,6 +34,7 @@ import org.springframework.retry.RetryCallback;
 import org.springframework.retry.RetryContext;
 import org.springframework.retry.backoff.BackOffPolicy;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.listener.RetryListenerSupport;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
@@ -43,6 +45,7 @@ public class RetryConfig {
 
   private static final int DEFAULT_MAX_RETRIES = 5;
   private static final long DEFAULT_INITIAL_BACKOFF_INTERVAL = SECONDS.toMillis(15L);
+  private static final String RETRIES_METRIC = "auth_retries_total";
 
   @Value("${auth.connection.maxRetries}")
   private int maxRetries = DEFAULT_MAX_RETRIES;
@@ -53,6 +56,8 @@ public class RetryConfig {
 
   @Autowired
   private ClientRetryListener clientRetryListener;
+  @Autowired
+  private ServerMetrics metrics;
 
   @Bean
   public RetryTemplate retryTemplate() {
@@ -61,6 +66,7 @@ public class RetryConfig {
 
     result.setRetryPolicy(new SimpleRetryPolicy(maxRetries, getRetryableExceptions(), true));
     result.registerListener(new DefaultRetryListener(clientRetryListener));
+    result.registerListener(retryCountListener());
 
     return result;
   }
@@ -80,6 +86,26 @@ public class RetryConfig {
 
   }
 
+  /**
+   * Counts the attempts made after the first in {@code auth_retries_total}.
+   */
+  private RetryListenerSupport retryCountListener() {
+    val retries = metrics.counter(RETRIES_METRIC);
+    return new RetryListenerSupport() {
+
+      @Override
+      public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
+          Throwable throwable) {
+        // The retry count is the number of failed attempts, the last of which was not retried if it failed overall
+        val attempts = context.getRetryCount() + (throwable == null ? 1 : 0);
+        if (attempts > 1) {
+          retries.add(attempts - 1);
+        }
+      }
+
+    };
+  }
+
   private BackOffPolicy defineBackOffPolicy() {
     val backOffPolicy = new ExponentialBackOffPolicy();
     backOffPolicy.setInitialInterval(initialBackoff);
@@ -93,6 +93,11 @@ public class SecurityConfig extends ResourceServerConfigurerAdapter {
     // @formatter:off
       http
         .authorizeRequests()
+        // Read only, despite being a POST
+        .antMatchers(POST,"/entities/_exists")
+        .permitAll()
+        .antMatchers(POST,"/entities/_search")
+        .permitAll()
         .antMatchers(POST,"/entities/**")
         .access(accessConfig)
         .antMatchers(PUT,"/entities/**")
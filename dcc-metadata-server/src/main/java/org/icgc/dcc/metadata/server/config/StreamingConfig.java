@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.config;
+
+import static org.springframework.web.context.request.RequestAttributes.SCOPE_REQUEST;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Executor and timeouts of streamed responses, e.g. exports and lean reads.
+ * <p>
+ * Each stream holds a thread of the bounded stream executor for as long as its client takes to read it, and is bounded
+ * by the default async request timeout unless its handler marks it as an export.
+ */
+@Configuration
+public class StreamingConfig extends WebMvcConfigurerAdapter {
+
+  /**
+   * Constants.
+   */
+  public static final String EXPORT_ATTRIBUTE = StreamingConfig.class.getName() + ".export";
+
+  /**
+   * Configuration.
+   */
+  @Value("${streaming.threads}")
+  private int threads;
+  @Value("${streaming.queueCapacity}")
+  private int queueCapacity;
+  @Value("${streaming.exportTimeout}")
+  private long exportTimeout;
+
+  @Bean
+  public ThreadPoolTaskExecutor streamExecutor() {
+    val executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("stream-");
+
+    return executor;
+  }
+
+  @Override
+  public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+    configurer.setTaskExecutor(streamExecutor());
+    configurer.registerCallableInterceptors(new ExportTimeoutInterceptor(exportTimeout));
+  }
+
+  /**
+   * Applies the export timeout to requests whose handler set the {@link #EXPORT_ATTRIBUTE}.
+   */
+  @RequiredArgsConstructor
+  public static class ExportTimeoutInterceptor extends CallableProcessingInterceptorAdapter {
+
+    private final long timeout;
+
+    /**
+     * Called before the async request is started, so the timeout set here is the one it starts with.
+     */
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+      if (request.getAttribute(EXPORT_ATTRIBUTE, SCOPE_REQUEST) != null) {
+        ((AsyncWebRequest) request).setTimeout(timeout);
+      }
+    }
+
+  }
+
+}
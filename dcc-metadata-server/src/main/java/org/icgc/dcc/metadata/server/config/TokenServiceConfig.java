@@ -19,13 +19,15 @@ package org.icgc.dcc.metadata.server.config;
 
 import lombok.val;
 
+import org.icgc.dcc.metadata.server.oauth.CachingTokenServices;
+import org.icgc.dcc.metadata.server.oauth.ExpiringAccessTokenConverter;
 import org.icgc.dcc.metadata.server.oauth.RetryTokenServices;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
-import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
 
 @Configuration
@@ -45,9 +47,17 @@ public class TokenServiceConfig {
     return remoteTokenServices;
   }
 
+  @Bean
+  @Primary
+  public CachingTokenServices cachingTokenServices(RemoteTokenServices remoteTokenServices,
+      final @Value("${auth.cache.maxSize}") long maxSize,
+      final @Value("${auth.cache.ttl}") long ttl) {
+    return new CachingTokenServices(remoteTokenServices, maxSize, ttl);
+  }
+
   @Bean
   public AccessTokenConverter accessTokenConverter() {
-    return new DefaultAccessTokenConverter();
+    return new ExpiringAccessTokenConverter();
   }
 
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.config;
+
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.coyote.AbstractProtocol;
+import org.icgc.dcc.metadata.core.concurrent.VirtualThreads;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Handles requests on virtual threads, enabled by the {@code virtual-threads} profile. Requires Java 21 or later.
+ * <p>
+ * Each request gets a new virtual thread instead of one from Tomcat's bounded pool, so requests blocked on Mongo or the
+ * token check no longer hold platform threads and concurrency is bounded by the connector's connections instead.
+ */
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadConfig {
+
+  /**
+   * State.
+   */
+  private final ExecutorService requestExecutor = VirtualThreads.newThreadPerTaskExecutor("http-virtual-");
+
+  @Bean
+  public EmbeddedServletContainerCustomizer requestExecutorCustomizer() {
+    return container -> {
+      if (container instanceof TomcatEmbeddedServletContainerFactory) {
+        ((TomcatEmbeddedServletContainerFactory) container).addConnectorCustomizers(
+            connector -> ((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(requestExecutor));
+      }
+    };
+  }
+
+  /**
+   * Tomcat does not shut down executors it did not create.
+   */
+  @PreDestroy
+  public void shutdown() {
+    requestExecutor.shutdownNow();
+  }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.controller;
+
+import static org.icgc.dcc.metadata.server.config.AsyncConfig.ENTITY_READ_EXECUTOR;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.icgc.dcc.metadata.server.service.EntityService;
+import org.icgc.dcc.metadata.server.util.HeadMapping;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.SneakyThrows;
+import lombok.val;
+
+/**
+ * Non-blocking alternative to {@link EntityReadController}, enabled by the {@code async} profile.
+ * <p>
+ * Reads are handed to a small bounded executor and the request thread is released immediately, so the number of
+ * in-flight reads is bounded by the connector's connections rather than its threads. There is no reactive driver for
+ * the Mongo version in use, so each lookup still occupies an executor thread; the executor size caps concurrent
+ * queries and reads beyond its queue are rejected with {@code 503}.
+ */
+@RestController
+@RequestMapping("/entities")
+@Profile("async")
+public class AsyncEntityReadController {
+
+  /**
+   * Dependencies.
+   */
+  private final EntityReadController reads;
+  private final Executor executor;
+
+  /**
+   * Configuration.
+   */
+  private final long timeout;
+
+  @Autowired
+  public AsyncEntityReadController(EntityRepository repository, EntityService service, ObjectMapper mapper,
+      @Qualifier(ENTITY_READ_EXECUTOR) Executor executor, @Value("${async.reads.timeout}") long timeout) {
+    this.reads = new EntityReadController(repository, service, mapper);
+    this.executor = executor;
+    this.timeout = timeout;
+  }
+
+  @HeadMapping("/{id}")
+  public DeferredResult<ResponseEntity<Entity>> exists(@PathVariable("id") String id) {
+    return defer(() -> reads.exists(id));
+  }
+
+  @GetMapping("/{id}")
+  public DeferredResult<ResponseEntity<Entity>> get(@PathVariable("id") String id) {
+    return defer(() -> reads.get(id));
+  }
+
+  /**
+   * @see EntityReadController#find(MultiValueMap, List, boolean, boolean, String, Pageable)
+   */
+  @GetMapping
+  public DeferredResult<ResponseEntity<Slice<Entity>>> find(
+      @RequestParam(required = false) MultiValueMap<String, String> params,
+      @RequestParam(required = false) List<String> fields,
+      @RequestParam(defaultValue = "true") boolean count,
+      @RequestParam(defaultValue = "false") boolean estimate,
+      @RequestParam(required = false) String after,
+      @PageableDefault(sort = "id") Pageable pageable) {
+    return defer(() -> reads.find(params, fields, count, estimate, after, pageable));
+  }
+
+  /**
+   * @see EntityReadController#findLean(MultiValueMap, List, boolean, boolean, String, Pageable)
+   */
+  @GetMapping(params = "lean=true")
+  public DeferredResult<ResponseEntity<StreamingResponseBody>> findLean(
+      @RequestParam(required = false) MultiValueMap<String, String> params,
+      @RequestParam(required = false) List<String> fields,
+      @RequestParam(defaultValue = "true") boolean count,
+      @RequestParam(defaultValue = "false") boolean estimate,
+      @RequestParam(required = false) String after,
+      @PageableDefault(sort = "id") Pageable pageable) {
+    return defer(() -> reads.findLean(params, fields, count, estimate, after, pageable));
+  }
+
+  /**
+   * @see EntityReadController#search(MultiValueMap, List, boolean, boolean, String, Pageable)
+   */
+  @PostMapping(value = "/_search", consumes = APPLICATION_FORM_URLENCODED_VALUE)
+  public DeferredResult<ResponseEntity<Slice<Entity>>> search(
+      @RequestParam(required = false) MultiValueMap<String, String> params,
+      @RequestParam(required = false) List<String> fields,
+      @RequestParam(defaultValue = "true") boolean count,
+      @RequestParam(defaultValue = "false") boolean estimate,
+      @RequestParam(required = false) String after,
+      @PageableDefault(sort = "id") Pageable pageable) {
+    return find(params, fields, count, estimate, after, pageable);
+  }
+
+  /**
+   * @see EntityReadController#searchLean(MultiValueMap, List, boolean, boolean, String, Pageable)
+   */
+  @PostMapping(value = "/_search", params = "lean=true", consumes = APPLICATION_FORM_URLENCODED_VALUE)
+  public DeferredResult<ResponseEntity<StreamingResponseBody>> searchLean(
+      @RequestParam(required = false) MultiValueMap<String, String> params,
+      @RequestParam(required = false) List<String> fields,
+      @RequestParam(defaultValue = "true") boolean count,
+      @RequestParam(defaultValue = "false") boolean estimate,
+      @RequestParam(required = false) String after,
+      @PageableDefault(sort = "id") Pageable pageable) {
+    return findLean(params, fields, count, estimate, after, pageable);
+  }
+
+  private <T> DeferredResult<ResponseEntity<T>> defer(Supplier<ResponseEntity<T>> read) {
+    val result = new DeferredResult<ResponseEntity<T>>(timeout, new ResponseEntity<T>(SERVICE_UNAVAILABLE));
+    try {
+      executor.execute(() -> {
+        try {
+          ResponseEntity<T> response = read.get();
+          if (!result.setResult(response)) {
+            // Timed out meanwhile, so the body will never be written
+            close(response.getBody());
+          }
+        } catch (RuntimeException e) {
+          // Handled as if thrown by the handler
+          result.setErrorResult(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      result.setResult(new ResponseEntity<>(SERVICE_UNAVAILABLE));
+    }
+
+    return result;
+  }
+
+  @SneakyThrows
+  private static void close(Object body) {
+    if (body instanceof Closeable) {
+      ((Closeable) body).close();
+    }
+  }
+
+}
@@ -17,34 +17,50 @@
  */
 package org.icgc.dcc.metadata.server.controller;
 
+import static com.fasterxml.jackson.core.JsonGenerator.Feature.AUTO_CLOSE_TARGET;
 import static org.icgc.dcc.metadata.core.http.Headers.ENTITY_ID_HEADER;
+import static org.icgc.dcc.metadata.server.config.StreamingConfig.EXPORT_ATTRIBUTE;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.CONFLICT;
-import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.ResponseEntity.ok;
+import static org.springframework.web.context.request.RequestAttributes.SCOPE_REQUEST;
 
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import javax.validation.Valid;
+import javax.validation.Validation;
+import javax.validation.Validator;
 
+import org.icgc.dcc.metadata.server.config.StreamingConfig;
 import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.model.EntityChanges;
+import org.icgc.dcc.metadata.server.model.RegistrationResult;
+import org.icgc.dcc.metadata.server.repository.EntityQuery;
 import org.icgc.dcc.metadata.server.repository.EntityRepository;
 import org.icgc.dcc.metadata.server.service.DuplicateEntityException;
+import org.icgc.dcc.metadata.server.service.EntityChangeFeed;
 import org.icgc.dcc.metadata.server.service.EntityService;
-import org.icgc.dcc.metadata.server.util.HeadMapping;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
 import lombok.val;
@@ -54,6 +70,14 @@ import lombok.val;
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class EntityController {
 
+  /**
+   * Constants.
+   */
+  private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+  private static final String NDJSON_VALUE = "application/x-ndjson";
+  private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+  private static final char NDJSON_DELIMITER = '\n';
+
   /**
    * Dependencies.
    */
@@ -61,24 +85,80 @@ public class EntityController {
   private final EntityRepository repository;
   @Autowired
   private final EntityService service;
+  @Autowired
+  private final ObjectMapper mapper;
+  @Autowired
+  private final EntityChangeFeed feed;
 
-  @HeadMapping("/{id}")
-  public ResponseEntity<Entity> exists(@PathVariable("id") String id) {
-    return repository.exists(id) ? ok(null) : notFound();
-  }
+  /**
+   * Streams all entities matching {@code params} as newline delimited JSON. Unknown filters are rejected with
+   * {@code 400 Bad Request}.
+   * <p>
+   * Entities are read from a database cursor as they are written, so a slow client holds back the cursor rather than
+   * having results buffered in memory. Exports get the longer timeout of {@link StreamingConfig}.
+   */
+  @GetMapping(value = "/_export", produces = NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> export(
+      @RequestParam(required = false) MultiValueMap<String, String> params,
+      @RequestParam(required = false) List<String> fields,
+      WebRequest request) {
+    // Before the response is committed
+    Query query;
+    try {
+      query = EntityQuery.of(params, fields);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(BAD_REQUEST);
+    }
+
+    request.setAttribute(EXPORT_ATTRIBUTE, true, SCOPE_REQUEST);
+    return ResponseEntity.ok().contentType(NDJSON).body(output -> {
+      try (CloseableIterator<Entity> entities = repository.stream(query);
+          JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+        generator.disable(AUTO_CLOSE_TARGET);
 
-  @GetMapping("/{id}")
-  public ResponseEntity<Entity> get(@PathVariable("id") String id) {
-    val entity = repository.findOne(id);
-    return entity != null ? ok(entity) : notFound();
+        while (entities.hasNext()) {
+          generator.writeObject(entities.next());
+          generator.writeRaw(NDJSON_DELIMITER);
+        }
+      }
+    });
   }
 
-  @GetMapping
-  public ResponseEntity<Page<Entity>> find(
-      @RequestParam(required = false) Map<String, String> params,
-      @RequestParam(required = false) List<String> fields,
-      @PageableDefault(sort = "id") Pageable pageable) {
-    return ok(repository.findAll(params, fields, pageable));
+  /**
+   * Long polls the entities registered after {@code since}, in registration order. Answers as soon as there are any,
+   * or with no changes once the feed's timeout expires.
+   * 
+   * @param since the {@code next} position of the previous response, or empty to start from the first registration.
+   * Invalid positions are rejected with {@code 400 Bad Request}
+   * @param size the max number of entities to return
+   * @see EntityChangeFeed
+   */
+  @GetMapping("/_changes")
+  public DeferredResult<ResponseEntity<EntityChanges>> changes(
+      @RequestParam(defaultValue = "") String since,
+      @RequestParam(defaultValue = "100") int size) {
+    val result = new DeferredResult<ResponseEntity<EntityChanges>>(feed.getTimeout(), ok(EntityChanges.none(since)));
+    CompletableFuture<EntityChanges> changes;
+    try {
+      changes = feed.poll(since, size);
+    } catch (IllegalArgumentException e) {
+      result.setResult(new ResponseEntity<>(BAD_REQUEST));
+      return result;
+    }
+
+    changes.whenComplete((value, e) -> {
+      if (e == null) {
+        result.setResult(ok(value));
+      } else {
+        // Handled as if thrown by the handler
+        result.setErrorResult(e);
+      }
+    });
+
+    // Stop waiting on timeout or disconnect
+    result.onCompletion(() -> changes.cancel(false));
+
+    return result;
   }
 
   @PostMapping
@@ -90,8 +170,43 @@ public class EntityController {
     }
   }
 
-  private static ResponseEntity<Entity> notFound() {
-    return new ResponseEntity<>(NOT_FOUND);
+  /**
+   * Registers {@code entities} in bulk.
+   * 
+   * @param entities at most {@link EntityService#MAX_KEYS} entities. Larger lists are rejected with
+   * {@code 400 Bad Request}
+   * @return a result for every entity, in the same order as {@code entities}
+   */
+  @PostMapping("/_bulk")
+  public ResponseEntity<List<RegistrationResult>> register(@RequestBody List<Entity> entities) {
+    // @Valid does not cascade into the elements of a top-level collection
+    for (val entity : entities) {
+      if (!VALIDATOR.validate(entity).isEmpty()) {
+        return new ResponseEntity<>(BAD_REQUEST);
+      }
+    }
+
+    try {
+      return ok(service.registerAll(entities));
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(BAD_REQUEST);
+    }
+  }
+
+  /**
+   * Finds which of {@code keys} are registered, so that clients can skip them without registering each.
+   * 
+   * @param keys at most {@link EntityService#MAX_KEYS} entities with either an {@code id} or a {@code gnosId} and
+   * {@code fileName}. Larger lists are rejected with {@code 400 Bad Request}
+   * @return the ids of the registered {@code keys}
+   */
+  @PostMapping("/_exists")
+  public ResponseEntity<Set<String>> exists(@RequestBody List<Entity> keys) {
+    try {
+      return ok(service.findRegistered(keys));
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(BAD_REQUEST);
+    }
   }
 
   private static ResponseEntity<Entity> conflict(DuplicateEntityException e) {
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.controller;
+
+import static com.fasterxml.jackson.core.JsonGenerator.Feature.AUTO_CLOSE_TARGET;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
+import static org.springframework.http.ResponseEntity.ok;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.icgc.dcc.metadata.server.model.DocumentSlice;
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.query.Keyset;
+import org.icgc.dcc.metadata.server.query.KeysetSlice;
+import org.icgc.dcc.metadata.server.repository.EntityCriteria;
+import org.icgc.dcc.metadata.server.repository.EntityQuery;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.icgc.dcc.metadata.server.service.EntityService;
+import org.icgc.dcc.metadata.server.util.HeadMapping;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Entity lookups and searches, served on the request thread. Replaced by {@link AsyncEntityReadController} in the
+ * {@code async} profile.
+ */
+@RestController
+@RequestMapping("/entities")
+@Profile("!async")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class EntityReadController {
+
+  /**
+   * Dependencies.
+   */
+  @Autowired
+  private final EntityRepository repository;
+  @Autowired
+  private final EntityService service;
+  @Autowired
+  private final ObjectMapper mapper;
+
+  @HeadMapping("/{id}")
+  public ResponseEntity<Entity> exists(@PathVariable("id") String id) {
+    return service.exists(id) ? ok(null) : notFound();
+  }
+
+  @GetMapping("/{id}")
+  public ResponseEntity<Entity> get(@PathVariable("id") String id) {
+    val entity = repository.findOne(id);
+    return entity != null ? ok(entity) : notFound();
+  }
+
+  /**
+   * Finds entities matching {@code params}.
+   * 
+   * @param params the filters, see {@link EntityCriteria}. Unknown filters are rejected with {@code 400 Bad Request}
+   * @param count whether to count the total number of matches. If unset, a {@link Slice} without totals is returned
+   * @param estimate whether the total may be estimated from collection statistics when there are no filters
+   * @param after the continuation token of the previous slice. If set, even if empty, a keyset paginated
+   * {@link KeysetSlice} is returned whose {@code next} token resumes after its last element
+   */
+  @GetMapping
+  public ResponseEntity<Slice<Entity>> find(
+      @RequestParam(required = false) MultiValueMap<String, String> params,
+      @RequestParam(required = false) List<String> fields,
+      @RequestParam(defaultValue = "true") boolean count,
+      @RequestParam(defaultValue = "false") boolean estimate,
+      @RequestParam(required = false) String after,
+      @PageableDefault(sort = "id") Pageable pageable) {
+    Query query;
+    Keyset keyset;
+    try {
+      query = EntityQuery.of(params, fields);
+      keyset = after == null || after.isEmpty() ? null : Keyset.decode(after);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(BAD_REQUEST);
+    }
+
+    if (after != null) {
+      return ok(repository.findAfter(query, pageable, keyset));
+    }
+    if (!count) {
+      return ok(repository.findSlice(query, pageable));
+    }
+    if (estimate) {
+      return ok(repository.findAll(query, pageable, true));
+    }
+
+    return ok(repository.findAll(query, pageable));
+  }
+
+  /**
+   * Same as {@link #find}, but returns the matching documents as stored, without mapping them to entities, in a
+   * {@link DocumentSlice} with only the paging property of the requested pagination. Meant for large pages of narrow
+   * projections, e.g. {@code fields=id}.
+   * <p>
+   * Documents are written as they are read from a database cursor, so the page is never held in memory as a whole.
+   */
+  @GetMapping(params = "lean=true")
+  public ResponseEntity<StreamingResponseBody> findLean(
+      @RequestParam(required = false) MultiValueMap<String, String> params,
+      @RequestParam(required = false) List<String> fields,
+      @RequestParam(defaultValue = "true") boolean count,
+      @RequestParam(defaultValue = "false") boolean estimate,
+      @RequestParam(required = false) String after,
+      @PageableDefault(sort = "id") Pageable pageable) {
+    // Before the response is committed
+    DocumentSlice slice;
+    try {
+      slice = findDocuments(EntityQuery.of(params, fields), count, estimate, after, pageable);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(BAD_REQUEST);
+    }
+
+    return ResponseEntity.ok().contentType(APPLICATION_JSON_UTF8).body(new DocumentSliceBody(slice));
+  }
+
+  /**
+   * Same as {@link #find}, but with the parameters posted as a form, e.g. for filter lists too long for a query string.
+   */
+  @PostMapping(value = "/_search", consumes = APPLICATION_FORM_URLENCODED_VALUE)
+  public ResponseEntity<Slice<Entity>> search(
+      @RequestParam(required = false) MultiValueMap<String, String> params,
+      @RequestParam(required = false) List<String> fields,
+      @RequestParam(defaultValue = "true") boolean count,
+      @RequestParam(defaultValue = "false") boolean estimate,
+      @RequestParam(required = false) String after,
+      @PageableDefault(sort = "id") Pageable pageable) {
+    return find(params, fields, count, estimate, after, pageable);
+  }
+
+  /**
+   * Same as {@link #findLean}, but with the parameters posted as a form.
+   */
+  @PostMapping(value = "/_search", params = "lean=true", consumes = APPLICATION_FORM_URLENCODED_VALUE)
+  public ResponseEntity<StreamingResponseBody> searchLean(
+      @RequestParam(required = false) MultiValueMap<String, String> params,
+      @RequestParam(required = false) List<String> fields,
+      @RequestParam(defaultValue = "true") boolean count,
+      @RequestParam(defaultValue = "false") boolean estimate,
+      @RequestParam(required = false) String after,
+      @PageableDefault(sort = "id") Pageable pageable) {
+    return findLean(params, fields, count, estimate, after, pageable);
+  }
+
+  private DocumentSlice findDocuments(Query query, boolean count, boolean estimate, String after, Pageable pageable) {
+    if (after != null) {
+      val keyset = after.isEmpty() ? null : Keyset.decode(after);
+      return DocumentSlice.ofKeyset(repository.findDocumentsAfter(query, pageable, keyset));
+    }
+    if (!count) {
+      return DocumentSlice.ofSlice(repository.findDocuments(query, pageable));
+    }
+
+    val total = repository.count(query, estimate);
+    return DocumentSlice.ofPage(repository.findDocuments(query, pageable), total);
+  }
+
+  private static ResponseEntity<Entity> notFound() {
+    return new ResponseEntity<>(NOT_FOUND);
+  }
+
+  /**
+   * Writes a {@link DocumentSlice}. Closed instead if it will not be written, e.g. because the request timed out.
+   */
+  @RequiredArgsConstructor
+  private class DocumentSliceBody implements StreamingResponseBody, Closeable {
+
+    private final DocumentSlice slice;
+
+    @Override
+    public void writeTo(OutputStream output) throws IOException {
+      try (JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+        generator.disable(AUTO_CLOSE_TARGET);
+        slice.write(generator);
+      }
+    }
+
+    @Override
+    public void close() {
+      slice.close();
+    }
+
+  }
+
+}
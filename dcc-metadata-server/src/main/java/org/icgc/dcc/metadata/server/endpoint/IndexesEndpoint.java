@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.endpoint;
+
+import static com.mongodb.AggregationOptions.OutputMode.CURSOR;
+import static java.util.Collections.singletonList;
+
+import java.util.List;
+import java.util.Map;
+
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.repository.EntityCriteria;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.mongodb.AggregationOptions;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reports the indexes of the {@link Entity} collection, how often each has been used, and which
+ * {@link EntityCriteria} filters can be served by an index.
+ * <p>
+ * A filter can be served by an index if the index starts with the filtered field. Queries that only filter on
+ * {@code uncovered} fields scan the whole collection.
+ */
+@Slf4j
+@Component
+public class IndexesEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+  /**
+   * Constants.
+   */
+  private static final String ID = "indexes";
+  private static final DBObject INDEX_STATS_STAGE = new BasicDBObject("$indexStats", new BasicDBObject());
+  private static final AggregationOptions INDEX_STATS_OPTIONS = AggregationOptions.builder().outputMode(CURSOR).build();
+
+  /**
+   * Dependencies.
+   */
+  private final MongoOperations mongoOperations;
+
+  @Autowired
+  public IndexesEndpoint(@NonNull MongoOperations mongoOperations) {
+    // Only exposed on the management port
+    super(ID, false);
+    this.mongoOperations = mongoOperations;
+  }
+
+  @Override
+  public Map<String, Object> invoke() {
+    val indexes = mongoOperations.indexOps(Entity.class).getIndexInfo();
+    val usage = getUsage();
+
+    val indexReports = ImmutableList.<Map<String, Object>> builder();
+    for (val index : indexes) {
+      val indexReport = ImmutableMap.<String, Object> builder()
+          .put("name", index.getName())
+          .put("key", getKey(index))
+          .put("unique", index.isUnique());
+
+      val accesses = usage.get(index.getName());
+      if (accesses != null) {
+        indexReport.put("accesses", accesses);
+      }
+
+      indexReports.add(indexReport.build());
+    }
+
+    val coverage = Maps.<String, Object> newLinkedHashMap();
+    val uncovered = ImmutableList.<String> builder();
+    for (val propertyPath : EntityCriteria.getPropertyPaths()) {
+      val index = getLeadingIndex(indexes, getFieldName(propertyPath));
+      coverage.put(propertyPath, index == null ? null : index.getName());
+      if (index == null) {
+        uncovered.add(propertyPath);
+      }
+    }
+
+    val report = Maps.<String, Object> newLinkedHashMap();
+    report.put("indexes", indexReports.build());
+    report.put("coverage", coverage);
+    report.put("uncovered", uncovered.build());
+
+    return report;
+  }
+
+  /**
+   * @return the {@code $indexStats} accesses by index name. Empty if the server does not support them.
+   */
+  private Map<String, Object> getUsage() {
+    val usage = ImmutableMap.<String, Object> builder();
+    val collection = mongoOperations.getCollection(mongoOperations.getCollectionName(Entity.class));
+    try (val cursor = collection.aggregate(singletonList(INDEX_STATS_STAGE), INDEX_STATS_OPTIONS)) {
+      while (cursor.hasNext()) {
+        val stats = cursor.next();
+        usage.put((String) stats.get("name"), stats.get("accesses"));
+      }
+    } catch (MongoException e) {
+      log.warn("Could not get index usage: {}", e.getMessage());
+    }
+
+    return usage.build();
+  }
+
+  private String getFieldName(String propertyPath) {
+    val entity = mongoOperations.getConverter().getMappingContext().getPersistentEntity(Entity.class);
+    return entity.getPersistentProperty(propertyPath).getFieldName();
+  }
+
+  private static Map<String, Object> getKey(IndexInfo index) {
+    val key = ImmutableMap.<String, Object> builder();
+    for (val field : index.getIndexFields()) {
+      key.put(field.getKey(), field.isGeo() ? "geo" : field.getDirection());
+    }
+
+    return key.build();
+  }
+
+  private static IndexInfo getLeadingIndex(List<IndexInfo> indexes, String fieldName) {
+    for (val index : indexes) {
+      List<IndexField> fields = index.getIndexFields();
+      if (!fields.isEmpty() && fields.get(0).getKey().equals(fieldName)) {
+        return index;
+      }
+    }
+
+    return null;
+  }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.endpoint;
+
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.icgc.dcc.metadata.server.metrics.LatencyHistogram;
+import org.icgc.dcc.metadata.server.metrics.MetricKey;
+import org.icgc.dcc.metadata.server.metrics.ServerMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.mvc.AbstractMvcEndpoint;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Exports the {@link ServerMetrics} in the Prometheus text format, for scraping from the management port.
+ * <p>
+ * Histograms are exported in seconds, with cumulative buckets.
+ * 
+ * @see <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Exposition formats</a>
+ */
+@Component
+public class PrometheusEndpoint extends AbstractMvcEndpoint {
+
+  /**
+   * Constants.
+   */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final String PATH = "/prometheus";
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  /**
+   * Dependencies.
+   */
+  private final ServerMetrics metrics;
+
+  @Autowired
+  public PrometheusEndpoint(@NonNull ServerMetrics metrics) {
+    // Only exposed on the management port
+    super(PATH, false);
+    this.metrics = metrics;
+  }
+
+  @ResponseBody
+  @RequestMapping(method = GET, produces = CONTENT_TYPE)
+  public String invoke() {
+    val text = new StringBuilder();
+    val types = Sets.<String> newHashSet();
+    val bounds = LatencyHistogram.getBounds();
+    for (val entry : sortByName(metrics.getHistograms())) {
+      val key = entry.getKey();
+      val snapshot = entry.getValue().snapshot();
+      writeType(text, types, key.getName(), "histogram");
+
+      long cumulative = 0;
+      val bucketCounts = snapshot.getBucketCounts();
+      for (int i = 0; i < bucketCounts.length; i++) {
+        cumulative += bucketCounts[i];
+        val le = i < bounds.length ? BigDecimal.valueOf(bounds[i], 9).stripTrailingZeros().toPlainString() : "+Inf";
+        writeSample(text, key.getName() + "_bucket", key.getLabels(), "le", le, cumulative);
+      }
+      writeSample(text, key.getName() + "_sum", key.getLabels(), null, null, snapshot.getSum() / NANOS_PER_SECOND);
+      writeSample(text, key.getName() + "_count", key.getLabels(), null, null, snapshot.getCount());
+    }
+    for (val entry : sortByName(metrics.getCounters())) {
+      val key = entry.getKey();
+      writeType(text, types, key.getName(), "counter");
+      writeSample(text, key.getName(), key.getLabels(), null, null, entry.getValue().sum());
+    }
+
+    return text.toString();
+  }
+
+  /**
+   * Samples of the same metric must be contiguous.
+   */
+  private static <T> List<Map.Entry<MetricKey, T>> sortByName(Map<MetricKey, T> metrics) {
+    return Ordering.natural().onResultOf((Map.Entry<MetricKey, T> entry) -> entry.getKey().getName())
+        .sortedCopy(metrics.entrySet());
+  }
+
+  private static void writeType(StringBuilder text, Set<String> types, String name, String type) {
+    if (types.add(name)) {
+      text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+  }
+
+  private static void writeSample(StringBuilder text, String name, List<String> labels, String extraLabel,
+      String extraValue, Object value) {
+    text.append(name);
+    if (!labels.isEmpty() || extraLabel != null) {
+      text.append('{');
+      for (int i = 0; i < labels.size(); i += 2) {
+        writeLabel(text, labels.get(i), labels.get(i + 1));
+      }
+      if (extraLabel != null) {
+        writeLabel(text, extraLabel, extraValue);
+      }
+      text.setCharAt(text.length() - 1, '}');
+    }
+    text.append(' ').append(value).append('\n');
+  }
+
+  private static void writeLabel(StringBuilder text, String name, String value) {
+    val escaped = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    text.append(name).append("=\"").append(escaped).append("\",");
+  }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.filter;
+
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
+import static org.springframework.web.servlet.HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.icgc.dcc.metadata.server.metrics.LatencyHistogram;
+import org.icgc.dcc.metadata.server.metrics.ServerMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.google.common.collect.Maps;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Records the latency of every request in {@code http_server_requests_seconds}, labeled with the method, the mapped
+ * URI pattern (e.g. {@code /entities/{id}}) and the response status.
+ * <p>
+ * Asynchronous requests are recorded when they complete rather than when the request thread is released.
+ */
+@Component
+@Order(HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+  /**
+   * Constants.
+   */
+  public static final String METRIC_NAME = "http_server_requests_seconds";
+  private static final String UNMAPPED_URI = "unmapped";
+  private static final int MAX_STATUS = 599;
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final ServerMetrics metrics;
+
+  /**
+   * State.
+   * <p>
+   * Histograms by URI pattern, method and status, so that recording a request allocates nothing once its histogram has
+   * been looked up.
+   */
+  private final ConcurrentMap<String, ConcurrentMap<String, AtomicReferenceArray<LatencyHistogram>>> histograms =
+      Maps.newConcurrentMap();
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    val start = System.nanoTime();
+    boolean failed = false;
+    try {
+      chain.doFilter(request, response);
+    } catch (IOException | ServletException | RuntimeException e) {
+      // The container answers with an error status after this filter returns
+      failed = true;
+      throw e;
+    } finally {
+      val uri = getUri(request);
+      if (failed) {
+        record(request.getMethod(), uri, SC_INTERNAL_SERVER_ERROR, start);
+      } else if (isAsyncStarted(request)) {
+        request.getAsyncContext().addListener(new AsyncListener() {
+
+          @Override
+          public void onComplete(AsyncEvent event) {
+            record(request.getMethod(), uri, response.getStatus(), start);
+          }
+
+          @Override
+          public void onTimeout(AsyncEvent event) {
+          }
+
+          @Override
+          public void onError(AsyncEvent event) {
+          }
+
+          @Override
+          public void onStartAsync(AsyncEvent event) {
+          }
+
+        });
+      } else {
+        record(request.getMethod(), uri, response.getStatus(), start);
+      }
+    }
+  }
+
+  private void record(String method, String uri, int status, long start) {
+    getHistogram(method, uri, status).record(System.nanoTime() - start);
+  }
+
+  private LatencyHistogram getHistogram(String method, String uri, int status) {
+    if (status < 0 || status > MAX_STATUS) {
+      return lookupHistogram(method, uri, status);
+    }
+
+    // Plain gets first, since computeIfAbsent locks even when the key is present
+    ConcurrentMap<String, AtomicReferenceArray<LatencyHistogram>> byMethod = histograms.get(uri);
+    if (byMethod == null) {
+      byMethod = histograms.computeIfAbsent(uri, key -> Maps.newConcurrentMap());
+    }
+    AtomicReferenceArray<LatencyHistogram> byStatus = byMethod.get(method);
+    if (byStatus == null) {
+      byStatus = byMethod.computeIfAbsent(method, key -> new AtomicReferenceArray<>(MAX_STATUS + 1));
+    }
+
+    LatencyHistogram histogram = byStatus.get(status);
+    if (histogram == null) {
+      // Racing lookups get the same histogram
+      histogram = lookupHistogram(method, uri, status);
+      byStatus.set(status, histogram);
+    }
+
+    return histogram;
+  }
+
+  private LatencyHistogram lookupHistogram(String method, String uri, int status) {
+    return metrics.histogram(METRIC_NAME, "method", method, "uri", uri, "status", Integer.toString(status));
+  }
+
+  private static String getUri(HttpServletRequest request) {
+    val pattern = request.getAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE);
+    return pattern == null ? UNMAPPED_URI : pattern.toString();
+  }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.metrics;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.val;
+
+/**
+ * Latency histogram with fixed bucket bounds, from half a millisecond to ten seconds.
+ * <p>
+ * Recording is lock and allocation free: it finds the bucket with a few comparisons and increments striped counters,
+ * so it can be done on every request. Percentiles are estimated by interpolating within the bucket that contains them,
+ * which is accurate to the width of that bucket.
+ */
+public class LatencyHistogram {
+
+  /**
+   * Upper bounds of the buckets in nanoseconds, inclusive. A final bucket holds everything above the last bound.
+   */
+  private static final long[] BOUNDS = {
+      MICROSECONDS.toNanos(500),
+      MILLISECONDS.toNanos(1),
+      MILLISECONDS.toNanos(2) + MICROSECONDS.toNanos(500),
+      MILLISECONDS.toNanos(5),
+      MILLISECONDS.toNanos(10),
+      MILLISECONDS.toNanos(25),
+      MILLISECONDS.toNanos(50),
+      MILLISECONDS.toNanos(100),
+      MILLISECONDS.toNanos(250),
+      MILLISECONDS.toNanos(500),
+      SECONDS.toNanos(1),
+      MILLISECONDS.toNanos(2500),
+      SECONDS.toNanos(5),
+      SECONDS.toNanos(10) };
+
+  /**
+   * State.
+   */
+  private final LongAdder[] counts = new LongAdder[BOUNDS.length + 1];
+  private final LongAdder sum = new LongAdder();
+
+  public LatencyHistogram() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  public void record(long nanos) {
+    int i = 0;
+    while (i < BOUNDS.length && nanos > BOUNDS[i]) {
+      i++;
+    }
+
+    counts[i].increment();
+    sum.add(nanos);
+  }
+
+  /**
+   * @return a consistent enough view of the recorded values for reporting, while recording continues
+   */
+  public Snapshot snapshot() {
+    val bucketCounts = new long[counts.length];
+    long count = 0;
+    for (int i = 0; i < counts.length; i++) {
+      bucketCounts[i] = counts[i].sum();
+      count += bucketCounts[i];
+    }
+
+    return new Snapshot(bucketCounts, count, sum.sum());
+  }
+
+  /**
+   * @return the upper bounds of the buckets in nanoseconds, not including the unbounded last bucket
+   */
+  public static long[] getBounds() {
+    return BOUNDS.clone();
+  }
+
+  @lombok.Value
+  public static class Snapshot {
+
+    /**
+     * The number of values in each bucket, not cumulative.
+     */
+    long[] bucketCounts;
+    long count;
+    long sum;
+
+    /**
+     * @param quantile between {@code 0} and {@code 1}
+     * @return the estimated value at {@code quantile} in nanoseconds, or {@code 0} if there are no values
+     */
+    public long getQuantile(double quantile) {
+      if (count == 0) {
+        return 0;
+      }
+
+      val rank = (long) Math.ceil(quantile * count);
+      long cumulative = 0;
+      for (int i = 0; i < bucketCounts.length; i++) {
+        if (cumulative + bucketCounts[i] >= rank && bucketCounts[i] > 0) {
+          val lower = i == 0 ? 0 : BOUNDS[i - 1];
+          if (i == BOUNDS.length) {
+            // Unbounded
+            return lower;
+          }
+
+          val fraction = (double) (rank - cumulative) / bucketCounts[i];
+          return lower + (long) (fraction * (BOUNDS[i] - lower));
+        }
+
+        cumulative += bucketCounts[i];
+      }
+
+      return BOUNDS[BOUNDS.length - 1];
+    }
+
+    public double getMean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+  }
+
+}
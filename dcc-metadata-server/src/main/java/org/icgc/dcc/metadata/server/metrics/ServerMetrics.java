@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.metrics;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Registry of the server's latency histograms and counters, keyed by name and labels.
+ * <p>
+ * Callers on hot paths should look up their histogram or counter once and keep it, rather than on every call. All are
+ * exported in the Prometheus text format by {@link PrometheusEndpoint}, and summarized on the metrics endpoint as e.g.
+ * {@code repository_operation_seconds.operation.exists.p99}, in milliseconds.
+ */
+@Component
+public class ServerMetrics implements PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final double[] QUANTILES = { 0.5, 0.99 };
+
+  /**
+   * State.
+   */
+  private final ConcurrentMap<MetricKey, LatencyHistogram> histograms = Maps.newConcurrentMap();
+  private final ConcurrentMap<MetricKey, LongAdder> counters = Maps.newConcurrentMap();
+
+  /**
+   * @param labels alternating label names and values
+   */
+  public LatencyHistogram histogram(@NonNull String name, String... labels) {
+    return histograms.computeIfAbsent(MetricKey.of(name, labels), key -> new LatencyHistogram());
+  }
+
+  /**
+   * @param labels alternating label names and values
+   */
+  public LongAdder counter(@NonNull String name, String... labels) {
+    return counters.computeIfAbsent(MetricKey.of(name, labels), key -> new LongAdder());
+  }
+
+  public Map<MetricKey, LatencyHistogram> getHistograms() {
+    return ImmutableMap.copyOf(histograms);
+  }
+
+  public Map<MetricKey, LongAdder> getCounters() {
+    return ImmutableMap.copyOf(counters);
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    val metrics = ImmutableList.<Metric<?>> builder();
+    for (val entry : histograms.entrySet()) {
+      val prefix = getMetricName(entry.getKey());
+      val snapshot = entry.getValue().snapshot();
+      metrics.add(new Metric<Long>(prefix + ".count", snapshot.getCount()));
+      for (val quantile : QUANTILES) {
+        metrics.add(new Metric<Double>(prefix + ".p" + Math.round(quantile * 100),
+            (double) snapshot.getQuantile(quantile) / MILLISECONDS.toNanos(1)));
+      }
+    }
+    for (val entry : counters.entrySet()) {
+      metrics.add(new Metric<Long>(getMetricName(entry.getKey()), entry.getValue().sum()));
+    }
+
+    return metrics.build();
+  }
+
+  private static String getMetricName(MetricKey key) {
+    val name = new StringBuilder(key.getName());
+    List<String> labels = key.getLabels();
+    for (int i = 0; i < labels.size(); i += 2) {
+      name.append('.').append(labels.get(i)).append('.').append(labels.get(i + 1));
+    }
+
+    return name.toString();
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import com.google.common.collect.Maps;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Records the latency of every intercepted call in a histogram labeled with the method name, e.g.
+ * {@code repository_operation_seconds{operation="exists"}}. Failed calls are recorded too, and additionally counted if
+ * a failure counter is given.
+ */
+@RequiredArgsConstructor
+public class TimingInterceptor implements MethodInterceptor {
+
+  /**
+   * Constants.
+   */
+  private static final String OPERATION_LABEL = "operation";
+
+  /**
+   * Dependencies.
+   */
+  @NonNull
+  private final ServerMetrics metrics;
+
+  /**
+   * Configuration.
+   */
+  @NonNull
+  private final String name;
+  private final LongAdder failures;
+
+  /**
+   * State.
+   */
+  private final ConcurrentMap<Method, LatencyHistogram> histograms = Maps.newConcurrentMap();
+
+  public TimingInterceptor(ServerMetrics metrics, String name) {
+    this(metrics, name, null);
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    val histogram = getHistogram(invocation.getMethod());
+
+    val start = System.nanoTime();
+    try {
+      return invocation.proceed();
+    } catch (Throwable t) {
+      if (failures != null) {
+        failures.increment();
+      }
+
+      throw t;
+    } finally {
+      histogram.record(System.nanoTime() - start);
+    }
+  }
+
+  private LatencyHistogram getHistogram(Method method) {
+    // Plain get first, since computeIfAbsent locks even when the key is present
+    LatencyHistogram histogram = histograms.get(method);
+    if (histogram == null) {
+      histogram = histograms.computeIfAbsent(method, key -> metrics.histogram(name, OPERATION_LABEL, key.getName()));
+    }
+
+    return histogram;
+  }
+
+}
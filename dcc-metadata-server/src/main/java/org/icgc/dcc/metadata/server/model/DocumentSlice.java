@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.model;
+
+import static org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper.DEFAULT_TYPE_KEY;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.icgc.dcc.metadata.server.query.DocumentCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mongodb.DBObject;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Lean alternative to a {@link Page} or {@link Slice} of {@link Entity}s. Writes the documents as stored, without
+ * mapping them to entities, as they are read from a {@link DocumentCursor}, followed by only the paging property that
+ * continues the requested pagination:
+ * 
+ * <pre>
+ * {"content": [...], "totalElements": 2}    if counted
+ * {"content": [...], "last": false}         if neither counted nor keyset paginated
+ * {"content": [...], "next": "..."}         if keyset paginated, and absent after the last slice
+ * </pre>
+ */
+@RequiredArgsConstructor
+public class DocumentSlice implements Closeable {
+
+  /**
+   * Constants.
+   */
+  private static final String ID_FIELD_NAME = "_id";
+  private static final String ID_PROPERTY = "id";
+
+  @NonNull
+  private final DocumentCursor content;
+  private final Long totalElements;
+  private final boolean keyset;
+
+  public static DocumentSlice ofPage(DocumentCursor content, long totalElements) {
+    return new DocumentSlice(content, totalElements, false);
+  }
+
+  public static DocumentSlice ofSlice(DocumentCursor content) {
+    return new DocumentSlice(content, null, false);
+  }
+
+  public static DocumentSlice ofKeyset(DocumentCursor content) {
+    return new DocumentSlice(content, null, true);
+  }
+
+  /**
+   * Writes this slice to {@code generator}, consuming and closing its content.
+   */
+  public void write(JsonGenerator generator) throws IOException {
+    try (val documents = content) {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("content");
+      while (documents.hasNext()) {
+        writeDocument(documents.next(), generator);
+      }
+      generator.writeEndArray();
+
+      // Known once the content is consumed
+      if (totalElements != null) {
+        generator.writeNumberField("totalElements", totalElements);
+      } else if (keyset) {
+        val next = documents.getNext();
+        if (next != null) {
+          generator.writeStringField("next", next.encode());
+        }
+      } else {
+        generator.writeBooleanField("last", !documents.hasNextSlice());
+      }
+      generator.writeEndObject();
+    }
+  }
+  /**
+   * Releases the content of a slice that will not be written.
+   */
+  @Override
+  public void close() {
+    content.close();
+  }
+
+
+  /**
+   * Writes {@code document} as its {@link Entity} would be written, i.e. with its id as {@code id} and without the
+   * type key of the mapping layer.
+   */
+  private static void writeDocument(DBObject document, JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    for (val field : document.keySet()) {
+      if (DEFAULT_TYPE_KEY.equals(field)) continue;
+
+      generator.writeFieldName(ID_FIELD_NAME.equals(field) ? ID_PROPERTY : field);
+      generator.writeObject(document.get(field));
+    }
+    generator.writeEndObject();
+  }
+
+}
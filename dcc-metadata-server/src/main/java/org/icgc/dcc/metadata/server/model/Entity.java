@@ -19,12 +19,19 @@ package org.icgc.dcc.metadata.server.model;
 
 import org.hibernate.validator.constraints.NotEmpty;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
 
 @Data
 @Document(collection = "Entity")
+@CompoundIndexes({
+    @CompoundIndex(name = "gnosId_fileName", def = "{ 'gnosId': 1, 'fileName': 1 }", unique = true),
+    // Order of the change feed. Also serves creation time filters.
+    @CompoundIndex(name = "createdTime_id", def = "{ 'createdTime': 1, '_id': 1 }") })
 public class Entity {
 
   @Id
@@ -36,9 +43,11 @@ public class Entity {
   @NotEmpty
   private String fileName;
 
+  @Indexed
   @NotEmpty
   private String projectCode;
 
+  @Indexed
   @NotEmpty
   private String access;
 
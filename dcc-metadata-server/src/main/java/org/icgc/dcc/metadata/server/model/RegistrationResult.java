@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.model;
+
+import static org.icgc.dcc.metadata.server.model.RegistrationResult.Status.CONFLICT;
+import static org.icgc.dcc.metadata.server.model.RegistrationResult.Status.CREATED;
+
+import lombok.Value;
+
+/**
+ * Outcome of registering a single {@link Entity} as part of a bulk request.
+ */
+@Value
+public class RegistrationResult {
+
+  Status status;
+
+  /**
+   * Id of the registered entity or, in case of a conflict, of the existing one.
+   */
+  String id;
+
+  /**
+   * The registered entity. Absent in case of a conflict.
+   */
+  Entity entity;
+
+  public static RegistrationResult created(Entity entity) {
+    return new RegistrationResult(CREATED, entity.getId(), entity);
+  }
+
+  public static RegistrationResult conflict(String existingId) {
+    return new RegistrationResult(CONFLICT, existingId, null);
+  }
+
+  public enum Status {
+
+    CREATED, CONFLICT;
+
+  }
+
+}
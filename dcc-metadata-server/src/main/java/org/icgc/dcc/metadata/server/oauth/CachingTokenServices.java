@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.oauth;
+
+import static com.google.common.base.Throwables.propagate;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.icgc.dcc.metadata.server.oauth.ExpiringAccessTokenConverter.getExpiration;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+
+import org.icgc.dcc.metadata.server.util.CacheMetrics;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * Caches the authentications loaded by a delegate {@link ResourceServerTokenServices}, so that a token is only checked
+ * remotely once per {@code ttl}, and never past its own expiration.
+ * <p>
+ * Tokens are keyed by their hash rather than their value. Concurrent lookups of the same token share a single call to
+ * the delegate.
+ */
+public class CachingTokenServices implements ResourceServerTokenServices, PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final HashFunction TOKEN_HASH = Hashing.sha256();
+  private static final String METRIC_PREFIX = "auth.cache";
+
+  /**
+   * Dependencies.
+   */
+  private final ResourceServerTokenServices delegate;
+
+  /**
+   * State.
+   */
+  private final Cache<String, CachedAuthentication> cache;
+
+  public CachingTokenServices(@NonNull ResourceServerTokenServices delegate, long maxSize, long ttl) {
+    this.delegate = delegate;
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl, MILLISECONDS)
+        .recordStats()
+        .build();
+  }
+
+  @Override
+  public OAuth2Authentication loadAuthentication(String accessToken) throws AuthenticationException,
+      InvalidTokenException {
+    val key = TOKEN_HASH.hashString(accessToken, UTF_8).toString();
+
+    CachedAuthentication cached = get(key, accessToken);
+    if (cached.isExpired(System.currentTimeMillis())) {
+      cache.asMap().remove(key, cached);
+      cached = get(key, accessToken);
+    }
+
+    // Callers set request specific details on the authentication, so never hand out the shared instance
+    val authentication = cached.getAuthentication();
+    return new OAuth2Authentication(authentication.getOAuth2Request(), authentication.getUserAuthentication());
+  }
+
+  @Override
+  public OAuth2AccessToken readAccessToken(String accessToken) {
+    return delegate.readAccessToken(accessToken);
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return CacheMetrics.getMetrics(METRIC_PREFIX, cache.stats(), cache.size());
+  }
+
+  private CachedAuthentication get(String key, String accessToken) {
+    try {
+      return cache.get(key, () -> {
+        OAuth2Authentication authentication = delegate.loadAuthentication(accessToken);
+        return new CachedAuthentication(authentication, getExpiration(authentication));
+      });
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      throw propagate(e.getCause());
+    }
+  }
+
+  @Value
+  private static class CachedAuthentication {
+
+    OAuth2Authentication authentication;
+    Long expiration;
+
+    boolean isExpired(long now) {
+      return expiration != null && expiration <= now;
+    }
+
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.oauth;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.Map;
+
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+
+import com.google.common.collect.Maps;
+
+import lombok.val;
+
+/**
+ * {@link AccessTokenConverter} that keeps the {@code exp} claim of the check token response as a request parameter of
+ * the extracted authentication, so that it can be cached no longer than the token is valid.
+ */
+public class ExpiringAccessTokenConverter extends DefaultAccessTokenConverter {
+
+  @Override
+  public OAuth2Authentication extractAuthentication(Map<String, ?> map) {
+    val authentication = super.extractAuthentication(map);
+    val expiration = map.get(EXP);
+    if (!(expiration instanceof Number)) {
+      return authentication;
+    }
+
+    val request = authentication.getOAuth2Request();
+    val parameters = Maps.newHashMap(request.getRequestParameters());
+    parameters.put(EXP, String.valueOf(((Number) expiration).longValue()));
+
+    return new OAuth2Authentication(request.createOAuth2Request(parameters), authentication.getUserAuthentication());
+  }
+
+  /**
+   * @return the expiration time of the token {@code authentication} was extracted from in milliseconds since the
+   * epoch, or {@code null} if unknown
+   */
+  public static Long getExpiration(OAuth2Authentication authentication) {
+    val expiration = authentication.getOAuth2Request().getRequestParameters().get(EXP);
+
+    return isNullOrEmpty(expiration) ? null : SECONDS.toMillis(Long.parseLong(expiration));
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.query;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import org.springframework.data.util.CloseableIterator;
+
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The documents of a page or slice, read from a database cursor as they are consumed rather than loaded at once.
+ * Whether a next slice follows, and its {@link Keyset}, are known once the documents have been consumed. Must be
+ * closed.
+ */
+@RequiredArgsConstructor
+public class DocumentCursor implements CloseableIterator<DBObject> {
+
+  /**
+   * Configuration.
+   */
+  @NonNull
+  private final DBCursor cursor;
+  private final int pageSize;
+  /**
+   * Reads the keyset of a document, or {@code null} unless keyset paginated.
+   */
+  private final Function<DBObject, Keyset> keysetReader;
+
+  /**
+   * State.
+   */
+  private int count;
+  private DBObject last;
+
+  @Override
+  public boolean hasNext() {
+    return count < pageSize && cursor.hasNext();
+  }
+
+  @Override
+  public DBObject next() {
+    if (count == pageSize) {
+      throw new NoSuchElementException();
+    }
+
+    last = cursor.next();
+    count++;
+
+    return last;
+  }
+
+  /**
+   * @return whether a next slice follows. Only once consumed
+   */
+  public boolean hasNextSlice() {
+    checkState(!hasNext(), "Documents not consumed");
+    return count == pageSize && cursor.hasNext();
+  }
+
+  /**
+   * @return the keyset of the last document if a next slice follows, or {@code null}. Only once consumed
+   */
+  public Keyset getNext() {
+    checkState(keysetReader != null, "Not keyset paginated");
+    return hasNextSlice() ? keysetReader.apply(last) : null;
+  }
+
+  @Override
+  public void close() {
+    cursor.close();
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.query;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.BaseEncoding;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * The sort key values of the last result of a keyset page. Used to resume a query after that result.
+ * <p>
+ * Encodes to an opaque, URL safe continuation token.
+ */
+@Value
+public class Keyset {
+
+  /**
+   * Constants.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+
+  /**
+   * The sort properties, in sort order.
+   */
+  @NonNull
+  List<String> properties;
+
+  /**
+   * The value of each of the {@link #properties}.
+   */
+  @NonNull
+  List<Object> values;
+
+  public String encode() {
+    try {
+      return ENCODING.encode(MAPPER.writeValueAsBytes(this));
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not encode keyset " + this, e);
+    }
+  }
+
+  /**
+   * Only accepts scalar values, since tokens come from clients and values end up in queries, where e.g. a
+   * {@code {"$ne": null}} object would be read as an operator.
+   * 
+   * @throws IllegalArgumentException if {@code token} was not produced by {@link #encode()}
+   */
+  public static Keyset decode(@NonNull String token) {
+    Keyset keyset;
+    try {
+      keyset = MAPPER.readValue(new String(ENCODING.decode(token), UTF_8), Keyset.class);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid keyset token '" + token + "'", e);
+    }
+
+    checkArgument(keyset != null && keyset.getProperties().size() == keyset.getValues().size(),
+        "Invalid keyset token '%s'", token);
+    for (val value : keyset.getValues()) {
+      checkArgument(value == null || value instanceof String || value instanceof Number,
+          "Invalid keyset token '%s'", token);
+    }
+
+    return keyset;
+  }
+
+}
@@ -18,10 +18,15 @@
 package org.icgc.dcc.metadata.server.query;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.data.mongodb.core.query.CriteriaDefinition;
 import org.springframework.data.mongodb.core.query.Query;
 
@@ -35,10 +40,68 @@ public interface QueryExecutor<T, ID extends Serializable> {
 
   <S extends T> Page<S> findAll(Query query, Pageable pageable);
 
+  /**
+   * Same as {@link #findAll(Query, Pageable)}, but when {@code estimateCount} is set and {@code query} has no criteria
+   * the total is taken from the collection statistics instead of being counted.
+   */
+  <S extends T> Page<S> findAll(Query query, Pageable pageable, boolean estimateCount);
+
+  /**
+   * Finds a page of results without counting the total number of matches. Whether there is a next page is determined
+   * by fetching one extra result.
+   */
+  <S extends T> Slice<S> findSlice(Query query, Pageable pageable);
+
+  /**
+   * Finds the slice of results that follows {@code after} in the order of {@code pageable}'s sort, using a range query
+   * on the sort keys instead of skipping over the preceding results. The id is appended to the sort as a tie-breaker.
+   * The page number of {@code pageable} is ignored.
+   * 
+   * @param after the keyset of the last result of the previous slice, or {@code null} to start from the beginning
+   * @throws IllegalArgumentException if {@code after} was produced with a different sort
+   */
+  <S extends T> KeysetSlice<S> findAfter(Query query, Pageable pageable, Keyset after);
+
+  /**
+   * Counts the matches of {@code query}, or estimates them from the collection statistics as
+   * {@link #findAll(Query, Pageable, boolean)} does.
+   */
+  long count(Query query, boolean estimateCount);
+
+  /**
+   * Same as {@link #findSlice(Query, Pageable)}, but reads the documents as stored, instead of mapping them to
+   * entities, from a cursor that is advanced as they are consumed. The cursor must be closed.
+   */
+  DocumentCursor findDocuments(Query query, Pageable pageable);
+
+  /**
+   * Same as {@link #findAfter(Query, Pageable, Keyset)}, but reads the documents as stored from a cursor that is
+   * advanced as they are consumed. The cursor must be closed.
+   */
+  DocumentCursor findDocumentsAfter(Query query, Pageable pageable, Keyset after);
+
   <S extends T> Page<S> findAll(CriteriaDefinition criteria, Pageable pageable);
 
+  /**
+   * Streams the results of {@code query} from a database cursor that is advanced as the results are consumed. The
+   * iterator must be closed.
+   */
+  <S extends T> CloseableIterator<S> stream(Query query);
+
   <S extends T> long count(CriteriaDefinition criteria);
 
   <S extends T> boolean exists(CriteriaDefinition criteria);
 
+  /**
+   * Finds which of {@code ids} exist using a single {@code $in} query that only returns ids.
+   */
+  Set<ID> findExistingIds(Collection<ID> ids);
+
+  /**
+   * Inserts {@code entities} using a single unordered bulk write.
+   * 
+   * @return the indexes of the {@code entities} that were rejected because of a duplicate key
+   */
+  <S extends T> Set<Integer> bulkInsert(List<S> entities);
+
 }
@@ -17,45 +17,107 @@
  */
 package org.icgc.dcc.metadata.server.query;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.springframework.data.mongodb.core.BulkOperations.BulkMode.UNORDERED;
+
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
 import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.CriteriaDefinition;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.repository.query.MongoEntityInformation;
 import org.springframework.data.mongodb.repository.support.SimpleMongoRepository;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.util.Assert;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.mongodb.BasicDBList;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
 import lombok.val;
 
 public class SimpleQueryMongoRepository<T, ID extends Serializable> extends SimpleMongoRepository<T, ID>
     implements QueryExecutor<T, ID> {
 
+  /**
+   * Constants.
+   */
+  private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+  private static final String COUNT_STAT = "count";
+  private static final String OR_OPERATOR = "$or";
+
   private final MongoOperations mongoOperations;
   private final MongoEntityInformation<T, ID> entityInformation;
+  private final QueryMapper queryMapper;
 
   public SimpleQueryMongoRepository(MongoEntityInformation<T, ID> metadata, MongoOperations mongoOperations) {
     super(metadata, mongoOperations);
     this.entityInformation = metadata;
     this.mongoOperations = mongoOperations;
+    this.queryMapper = new QueryMapper(mongoOperations.getConverter());
   }
 
   @Override
   public <S extends T> Page<S> findAll(Query query, Pageable pageable) {
-    val q = query.with(pageable);
+    return findAll(query, pageable, false);
+  }
 
-    val count = mongoOperations.count(q, getCollectionName());
-    if (count == 0) {
-      return new PageImpl<S>(Collections.<S> emptyList());
-    }
+  @Override
+  public <S extends T> Page<S> findAll(Query query, Pageable pageable, boolean estimateCount) {
+    return findPage(query, pageable, estimateCount, this::find);
+  }
+
+  @Override
+  public <S extends T> Slice<S> findSlice(Query query, Pageable pageable) {
+    return findSlice(query, pageable, this::find);
+  }
 
-    return new PageImpl<S>(mongoOperations.find(q, getType(), getCollectionName()), pageable, count);
+  @Override
+  public <S extends T> KeysetSlice<S> findAfter(Query query, Pageable pageable, Keyset after) {
+    return findAfter(query, pageable, after, this::find, SimpleQueryMongoRepository::getKeyset);
+  }
+
+  @Override
+  public long count(Query query, boolean estimateCount) {
+    return estimateCount && !hasCriteria(query) ? getEstimatedCount() : mongoOperations.count(query, getCollectionName());
+  }
+
+  @Override
+  public DocumentCursor findDocuments(Query query, Pageable pageable) {
+    val q = query.with(pageable).limit(pageable.getPageSize() + 1);
+
+    return new DocumentCursor(findDocuments(q), pageable.getPageSize(), null);
+  }
+
+  @Override
+  public DocumentCursor findDocumentsAfter(Query query, Pageable pageable, Keyset after) {
+    val sort = getKeysetSort(pageable.getSort());
+    val properties = getProperties(sort);
+    val q = getKeysetQuery(query, pageable, sort, properties, after);
+
+    return new DocumentCursor(findDocuments(q), pageable.getPageSize(),
+        document -> getDocumentKeyset(properties, document));
   }
 
   @Override
@@ -63,6 +125,11 @@ public class SimpleQueryMongoRepository<T, ID extends Serializable> extends Simp
     return findAll(getQuery(criteria), pageable);
   }
 
+  @Override
+  public <S extends T> CloseableIterator<S> stream(Query query) {
+    return mongoOperations.stream(query, this.<S> getType());
+  }
+
   @Override
   public <S extends T> List<S> findAll(CriteriaDefinition criteria, Sort sort) {
     return mongoOperations.find(getQuery(criteria).with(sort), getType(), getCollectionName());
@@ -88,11 +155,228 @@ public class SimpleQueryMongoRepository<T, ID extends Serializable> extends Simp
     return mongoOperations.exists(getQuery(criteria), getType(), getCollectionName());
   }
 
+  @Override
+  public Set<ID> findExistingIds(Collection<ID> ids) {
+    if (ids.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    val idProperty = entityInformation.getIdAttribute();
+    val query = new Query(Criteria.where(idProperty).in(ids));
+    query.fields().include(idProperty);
+
+    val existing = ImmutableSet.<ID> builder();
+    for (val entity : mongoOperations.find(query, this.<T> getType(), getCollectionName())) {
+      existing.add(entityInformation.getId(entity));
+    }
+
+    return existing.build();
+  }
+
+  @Override
+  public <S extends T> Set<Integer> bulkInsert(List<S> entities) {
+    if (entities.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    try {
+      mongoOperations.bulkOps(UNORDERED, getType(), getCollectionName()).insert(entities).execute();
+      return Collections.emptySet();
+    } catch (BulkOperationException e) {
+      val duplicates = ImmutableSet.<Integer> builder();
+      for (val error : e.getErrors()) {
+        if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+          throw e;
+        }
+
+        duplicates.add(error.getIndex());
+      }
+
+      return duplicates.build();
+    }
+  }
+
+  private <R> Page<R> findPage(Query query, Pageable pageable, boolean estimateCount, Function<Query, List<R>> finder) {
+    val q = query.with(pageable);
+
+    val count = count(q, estimateCount);
+    if (count == 0) {
+      return new PageImpl<R>(Collections.<R> emptyList());
+    }
+
+    return new PageImpl<R>(finder.apply(q), pageable, count);
+  }
+
+  private <R> Slice<R> findSlice(Query query, Pageable pageable, Function<Query, List<R>> finder) {
+    val q = query.with(pageable).limit(pageable.getPageSize() + 1);
+
+    List<R> content = finder.apply(q);
+    val hasNext = content.size() > pageable.getPageSize();
+    if (hasNext) {
+      content = content.subList(0, pageable.getPageSize());
+    }
+
+    return new SliceImpl<R>(content, pageable, hasNext);
+  }
+
+  private <R> KeysetSlice<R> findAfter(Query query, Pageable pageable, Keyset after, Function<Query, List<R>> finder,
+      BiFunction<List<String>, R, Keyset> keysetReader) {
+    val sort = getKeysetSort(pageable.getSort());
+    val properties = getProperties(sort);
+    val q = getKeysetQuery(query, pageable, sort, properties, after);
+
+    List<R> content = finder.apply(q);
+    Keyset next = null;
+    if (content.size() > pageable.getPageSize()) {
+      content = content.subList(0, pageable.getPageSize());
+      next = keysetReader.apply(properties, content.get(content.size() - 1));
+    }
+
+    return new KeysetSlice<R>(content, new PageRequest(0, pageable.getPageSize(), sort), next);
+  }
+
+  /**
+   * Restricts {@code query} to the slice after {@code after}, including the fields its next keyset is read from.
+   */
+  private Query getKeysetQuery(Query query, Pageable pageable, Sort sort, List<String> properties, Keyset after) {
+    if (after != null) {
+      checkArgument(after.getProperties().equals(properties), "Keyset %s does not match sort %s", after, sort);
+      query.addCriteria(getKeysetCriteria(sort, after));
+    }
+    if (query.getFieldsObject() != null) {
+      // The next keyset is read from the last result
+      for (val property : properties) {
+        query.fields().include(property);
+      }
+    }
+
+    return query.with(sort).limit(pageable.getPageSize() + 1);
+  }
+
+  private <S extends T> List<S> find(Query query) {
+    return mongoOperations.find(query, getType(), getCollectionName());
+  }
+
+  /**
+   * Opens a cursor over the documents matching {@code query} as stored, after mapping its properties to field names as
+   * {@link MongoOperations} would. Nothing is read until the cursor is advanced.
+   */
+  private DBCursor findDocuments(Query query) {
+    MongoPersistentEntity<?> entity = getPersistentEntity();
+    DBObject mappedQuery = queryMapper.getMappedObject(query.getQueryObject(), entity);
+    DBObject mappedFields =
+        query.getFieldsObject() == null ? null : queryMapper.getMappedFields(query.getFieldsObject(), entity);
+    DBObject mappedSort = query.getSortObject() == null ? null : queryMapper.getMappedSort(query.getSortObject(), entity);
+
+    return mongoOperations.execute(getCollectionName(), collection -> {
+      DBCursor cursor = collection.find(mappedQuery, mappedFields);
+      if (mappedSort != null) {
+        cursor.sort(mappedSort);
+      }
+
+      return cursor.skip(query.getSkip()).limit(query.getLimit());
+    });
+  }
+
+  private Keyset getDocumentKeyset(List<String> properties, DBObject document) {
+    val entity = getPersistentEntity();
+    val values = new ArrayList<Object>(properties.size());
+    for (val property : properties) {
+      val persistentProperty = entity.getPersistentProperty(property);
+      checkArgument(persistentProperty != null, "Unknown property '%s'", property);
+      values.add(document.get(persistentProperty.getFieldName()));
+    }
+
+    return new Keyset(properties, values);
+  }
+
   private Query getQuery(CriteriaDefinition criteria) {
     Assert.notNull(criteria, "Criteria must not be null!");
     return new Query(criteria);
   }
 
+  private Sort getKeysetSort(Sort sort) {
+    val idProperty = entityInformation.getIdAttribute();
+    val idOrder = new Sort(idProperty);
+    if (sort == null) {
+      return idOrder;
+    }
+
+    return sort.getOrderFor(idProperty) == null ? sort.and(idOrder) : sort;
+  }
+
+  /**
+   * Creates the criteria matching the results that sort after {@code keyset}:
+   * 
+   * <pre>
+   * (k1 > v1) or (k1 = v1 and k2 > v2) or ... or (k1 = v1 and ... and kn > vn)
+   * </pre>
+   * 
+   * Missing values sort first, so they are only "greater" than another missing value in descending order.
+   */
+  private static Criteria getKeysetCriteria(Sort sort, Keyset keyset) {
+    val orders = ImmutableList.copyOf(sort);
+    val values = keyset.getValues();
+
+    val clauses = new BasicDBList();
+    for (int i = 0; i < orders.size(); i++) {
+      val clause = new Criteria();
+      for (int j = 0; j < i; j++) {
+        clause.and(orders.get(j).getProperty()).is(values.get(j));
+      }
+
+      val order = orders.get(i);
+      val value = values.get(i);
+      if (value == null) {
+        if (order.isAscending()) {
+          clause.and(order.getProperty()).ne(null);
+          clauses.add(clause.getCriteriaObject());
+        }
+      } else {
+        if (order.isAscending()) {
+          clause.and(order.getProperty()).gt(value);
+        } else {
+          clause.and(order.getProperty()).not().gte(value);
+        }
+        clauses.add(clause.getCriteriaObject());
+      }
+    }
+
+    // Keyed on the operator so it can be added to a query that already has criteria
+    return Criteria.where(OR_OPERATOR).is(clauses);
+  }
+
+  private static Keyset getKeyset(List<String> properties, Object result) {
+    val accessor = PropertyAccessorFactory.forBeanPropertyAccess(result);
+    val values = new ArrayList<Object>(properties.size());
+    for (val property : properties) {
+      values.add(accessor.getPropertyValue(property));
+    }
+
+    return new Keyset(properties, values);
+  }
+
+  private static List<String> getProperties(Sort sort) {
+    val properties = ImmutableList.<String> builder();
+    for (val order : sort) {
+      properties.add(order.getProperty());
+    }
+
+    return properties.build();
+  }
+
+  private long getEstimatedCount() {
+    return mongoOperations.getCollection(getCollectionName()).getStats().getLong(COUNT_STAT);
+  }
+
+  private static boolean hasCriteria(Query query) {
+    return !query.getQueryObject().keySet().isEmpty();
+  }
+
+  private MongoPersistentEntity<?> getPersistentEntity() {
+    return mongoOperations.getConverter().getMappingContext().getPersistentEntity(getType());
+  }
+
   private String getCollectionName() {
     return entityInformation.getCollectionName();
   }
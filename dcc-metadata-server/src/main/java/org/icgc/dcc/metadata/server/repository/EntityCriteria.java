@@ -17,48 +17,264 @@
  */
 package org.icgc.dcc.metadata.server.repository;
 
-import static com.google.common.base.Strings.emptyToNull;
 import static lombok.AccessLevel.PRIVATE;
 
-import java.lang.reflect.Field;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 import org.icgc.dcc.metadata.server.model.Entity;
-import org.springframework.data.domain.Example;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.util.MultiValueMap;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
-import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import lombok.Value;
 import lombok.val;
 
 /**
- * {@link Example} factory for {@link Entity}s.
+ * Compiles request parameters to {@link Criteria} on {@link Entity}s.
+ * <p>
+ * Each parameter is looked up in a table of filters built once, which fixes the property it applies to, its operator
+ * and the type its value is converted to. Parameters that are neither filters nor {@link #RESERVED_PARAMS} are
+ * rejected rather than ignored, so that a misspelled filter fails instead of scanning the whole collection.
+ * <p>
+ * Supported filters:
+ * <ul>
+ * <li>{@code id}, {@code gnosId}, {@code projectCode}, {@code access}: equal to the value, or to any value of a comma
+ * separated list or of repeated parameters</li>
+ * <li>{@code fileName}, {@code createdTime}: equal to the value, or to any value of repeated parameters</li>
+ * <li>{@code fileNamePrefix}: file name starts with the value</li>
+ * <li>{@code createdAfter}, {@code createdBefore}: created strictly after or before the value, in milliseconds since
+ * the epoch</li>
+ * </ul>
+ * An empty value of an equality filter matches entities without the property.
  */
 @NoArgsConstructor(access = PRIVATE)
 public final class EntityCriteria {
 
+  /**
+   * Parameters bound by the controllers that are not filters, e.g. paging.
+   */
+  public static final Set<String> RESERVED_PARAMS =
+      ImmutableSet.of("page", "size", "sort", "fields", "count", "estimate", "after", "lean", "access_token");
+
   /**
    * Constants.
    */
-  @Getter(lazy = true, value = PRIVATE)
-  private static final List<Field> fields = ImmutableList.copyOf(Entity.class.getDeclaredFields());
+  private static final Function<String, Object> STRING = value -> value;
+  private static final Function<String, Object> LONG = Long::valueOf;
+  private static final Splitter LIST_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+  /**
+   * The filter table. Filters on the same property are adjacent, with equality first.
+   */
+  private static final List<Filter> FILTERS = ImmutableList.of(
+      new Filter("id", "id", Operator.EQUALS, STRING, true),
+      new Filter("gnosId", "gnosId", Operator.EQUALS, STRING, true),
+      new Filter("fileName", "fileName", Operator.EQUALS, STRING, false),
+      new Filter("fileNamePrefix", "fileName", Operator.PREFIX, STRING, false),
+      new Filter("projectCode", "projectCode", Operator.EQUALS, STRING, true),
+      new Filter("access", "access", Operator.EQUALS, STRING, true),
+      new Filter("createdTime", "createdTime", Operator.EQUALS, LONG, false),
+      new Filter("createdAfter", "createdTime", Operator.AFTER, LONG, false),
+      new Filter("createdBefore", "createdTime", Operator.BEFORE, LONG, false));
+  private static final Map<String, Integer> FILTER_INDEXES = indexByParam(FILTERS);
+  private static final List<String> PROPERTY_PATHS = ImmutableList.copyOf(FILTERS.stream()
+      .map(Filter::getPropertyPath)
+      .distinct()
+      .iterator());
+
+  /**
+   * @return the property paths that can be filtered on
+   */
+  public static List<String> getPropertyPaths() {
+    return PROPERTY_PATHS;
+  }
 
+  /**
+   * @throws IllegalArgumentException if a parameter is unknown or its value invalid
+   */
   public static Criteria of(@NonNull Map<String, String> params) {
-    Criteria criteria = new Criteria();
-    for (val field : getFields()) {
-      val propertyPath = field.getName();
+    return compile(params);
+  }
 
-      if (!params.containsKey(propertyPath)) continue;
+  /**
+   * Same as {@link #of(Map)}, but equality filters given more than once match any of their values, e.g.
+   * {@code gnosId=a&gnosId=b}.
+   * 
+   * @throws IllegalArgumentException if a parameter is unknown, its value invalid, or a filter other than an
+   * equality is given more than once
+   */
+  public static Criteria of(@NonNull MultiValueMap<String, String> params) {
+    return compile(params);
+  }
 
-      val value = emptyToNull(params.get(propertyPath));
-      criteria = criteria.and(propertyPath).is(value);
+  /**
+   * @param params single values or lists of values by parameter name
+   */
+  private static Criteria compile(Map<String, ?> params) {
+    Object[] values = null;
+    for (val entry : params.entrySet()) {
+      val index = FILTER_INDEXES.get(entry.getKey());
+      if (index == null) {
+        if (!RESERVED_PARAMS.contains(entry.getKey())) {
+          throw new IllegalArgumentException("Unknown filter '" + entry.getKey() + "'");
+        }
+
+        continue;
+      }
+
+      if (values == null) {
+        values = new Object[FILTERS.size()];
+      }
+      values[index] = entry.getValue();
+    }
+
+    val criteria = new Criteria();
+    if (values == null) {
+      return criteria;
+    }
+
+    // In the order of the table, so that the same filters always compile to the same criteria
+    Filter previous = null;
+    Criteria target = null;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == null) continue;
+
+      val filter = FILTERS.get(i);
+      if (previous != null && previous.getPropertyPath().equals(filter.getPropertyPath())) {
+        // Filters on the same property, e.g. both bounds of a range, share its criteria
+        if (previous.getOperator() == Operator.EQUALS || filter.getOperator() == Operator.EQUALS) {
+          throw new IllegalArgumentException("Filter '" + filter.getParam() + "' conflicts with '"
+              + previous.getParam() + "'");
+        }
+      } else {
+        target = criteria.and(filter.getPropertyPath());
+      }
+
+      filter.apply(target, values[i]);
+      previous = filter;
     }
 
     return criteria;
   }
 
+  private static Map<String, Integer> indexByParam(List<Filter> filters) {
+    val indexes = ImmutableMap.<String, Integer> builder();
+    for (int i = 0; i < filters.size(); i++) {
+      indexes.put(filters.get(i).getParam(), i);
+    }
+
+    return indexes.build();
+  }
+
+  private enum Operator {
+
+    EQUALS, PREFIX, AFTER, BEFORE;
+
+  }
+
+  @Value
+  private static class Filter {
+
+    String param;
+    String propertyPath;
+    Operator operator;
+    Function<String, Object> converter;
+
+    /**
+     * Whether the value may be a comma separated list.
+     */
+    boolean list;
+
+    /**
+     * @param value a single value or a list of values
+     */
+    void apply(Criteria criteria, Object value) {
+      if (value instanceof List) {
+        val values = (List<?>) value;
+        if (values.size() != 1) {
+          applyAll(criteria, values);
+          return;
+        }
+
+        value = values.get(0);
+      }
+
+      applySingle(criteria, (String) value);
+    }
+
+    private void applySingle(Criteria criteria, String value) {
+      if (value.isEmpty()) {
+        if (operator != Operator.EQUALS) {
+          throw new IllegalArgumentException("Expected a value for '" + param + "'");
+        }
+
+        criteria.is(null);
+        return;
+      }
+
+      if (operator == Operator.EQUALS && list && value.indexOf(',') >= 0) {
+        applyAll(criteria, ImmutableList.of(value));
+        return;
+      }
+
+      val converted = convert(value);
+      switch (operator) {
+      case EQUALS:
+        criteria.is(converted);
+        break;
+      case PREFIX:
+        criteria.regex("^" + Pattern.quote(value));
+        break;
+      case AFTER:
+        criteria.gt(converted);
+        break;
+      case BEFORE:
+        criteria.lt(converted);
+        break;
+      }
+    }
+
+    /**
+     * Matches any of {@code values}, each of which may be a comma separated list.
+     */
+    private void applyAll(Criteria criteria, List<?> values) {
+      if (operator != Operator.EQUALS) {
+        throw new IllegalArgumentException("Expected a single value for '" + param + "'");
+      }
+
+      val converted = Lists.newArrayListWithCapacity(values.size());
+      for (val value : values) {
+        if (list) {
+          for (val element : LIST_SPLITTER.split((String) value)) {
+            converted.add(convert(element));
+          }
+        } else {
+          converted.add(convert((String) value));
+        }
+      }
+
+      criteria.in(converted);
+    }
+
+    private Object convert(String value) {
+      try {
+        return converter.apply(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid value of '" + param + "': " + value, e);
+      }
+    }
+
+  }
+
 }
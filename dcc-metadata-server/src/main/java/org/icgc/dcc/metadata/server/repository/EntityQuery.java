@@ -24,6 +24,7 @@ import java.util.Map;
 
 import org.icgc.dcc.metadata.server.model.Entity;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.MultiValueMap;
 
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
@@ -41,7 +42,21 @@ public final class EntityQuery {
   private static final String ID_FIELD_NAME = "id";
 
   public static Query of(@NonNull Map<String, String> params, List<String> fields) {
-    val query = createQuery(params);
+    return project(createQuery(params), fields);
+  }
+
+  /**
+   * @see EntityCriteria#of(MultiValueMap)
+   */
+  public static Query of(@NonNull MultiValueMap<String, String> params, List<String> fields) {
+    return project(new Query(EntityCriteria.of(params)), fields);
+  }
+
+  public static Query createQuery(Map<String, String> params) {
+    return new Query(EntityCriteria.of(params));
+  }
+
+  private static Query project(Query query, List<String> fields) {
     if (fields != null) {
       for (val field : fields) {
         query.fields().include(field);
@@ -55,8 +70,4 @@ public final class EntityQuery {
     return query;
   }
 
-  public static Query createQuery(Map<String, String> params) {
-    return new Query(EntityCriteria.of(params));
-  }
-
 }
@@ -17,21 +17,96 @@
  */
 package org.icgc.dcc.metadata.server.repository;
 
+import static org.icgc.dcc.metadata.server.config.CacheConfig.ENTITIES_CACHE;
+import static org.icgc.dcc.metadata.server.config.CacheConfig.ENTITY_EXISTS_CACHE;
+
 import java.util.List;
 import java.util.Map;
 
 import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.query.Keyset;
+import org.icgc.dcc.metadata.server.query.KeysetSlice;
 import org.icgc.dcc.metadata.server.query.QueryExecutor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.util.CloseableIterator;
 
+/**
+ * {@link Entity} repository.
+ * <p>
+ * Lookups by id are cached. Only hits are cached so that registrations, possibly on another server instance, are
+ * visible immediately. Writes refresh the cache and deletes evict from it.
+ */
 public interface EntityRepository extends MongoRepository<Entity, String>, QueryExecutor<Entity, String> {
 
+  @Override
+  @Cacheable(cacheNames = ENTITIES_CACHE, unless = "#result == null")
+  Entity findOne(String id);
+
+  @Override
+  @Cacheable(cacheNames = ENTITY_EXISTS_CACHE, unless = "!#result")
+  boolean exists(String id);
+
+  @Override
+  @CachePut(cacheNames = ENTITIES_CACHE, key = "#p0.id")
+  <S extends Entity> S insert(S entity);
+
+  @Override
+  @CachePut(cacheNames = ENTITIES_CACHE, key = "#p0.id")
+  <S extends Entity> S save(S entity);
+
+  @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = ENTITIES_CACHE),
+      @CacheEvict(cacheNames = ENTITY_EXISTS_CACHE) })
+  void delete(String id);
+
+  @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = ENTITIES_CACHE, key = "#p0.id"),
+      @CacheEvict(cacheNames = ENTITY_EXISTS_CACHE, key = "#p0.id") })
+  void delete(Entity entity);
+
+  @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = ENTITIES_CACHE, allEntries = true),
+      @CacheEvict(cacheNames = ENTITY_EXISTS_CACHE, allEntries = true) })
+  void delete(Iterable<? extends Entity> entities);
+
+  @Override
+  @Caching(evict = {
+      @CacheEvict(cacheNames = ENTITIES_CACHE, allEntries = true),
+      @CacheEvict(cacheNames = ENTITY_EXISTS_CACHE, allEntries = true) })
+  void deleteAll();
+
   default Page<Entity> findAll(Map<String, String> params, List<String> fields, Pageable pageable) {
     return findAll(EntityQuery.of(params, fields), pageable);
   }
 
+  default Page<Entity> findAll(Map<String, String> params, List<String> fields, Pageable pageable,
+      boolean estimateCount) {
+    return findAll(EntityQuery.of(params, fields), pageable, estimateCount);
+  }
+
+  default Slice<Entity> findSlice(Map<String, String> params, List<String> fields, Pageable pageable) {
+    return findSlice(EntityQuery.of(params, fields), pageable);
+  }
+
+  default KeysetSlice<Entity> findAfter(Map<String, String> params, List<String> fields, Pageable pageable,
+      Keyset after) {
+    return findAfter(EntityQuery.of(params, fields), pageable, after);
+  }
+
+  default CloseableIterator<Entity> stream(Map<String, String> params, List<String> fields) {
+    return stream(EntityQuery.of(params, fields));
+  }
+
   Page<Entity> findByFileName(String fileName, Pageable pageable);
 
   Entity findByGnosIdAndFileName(String gnosId, String fileName);
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.springframework.data.domain.Sort.Direction.ASC;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.annotation.PreDestroy;
+
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.model.EntityChanges;
+import org.icgc.dcc.metadata.server.query.Keyset;
+import org.icgc.dcc.metadata.server.query.KeysetSlice;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * Ordered, resumable feed of registered {@link Entity}s, for consumers that tail registrations instead of re-scanning
+ * the collection.
+ * <p>
+ * Entities are read in {@code (createdTime, id)} order after a position, which is the keyset of the last entity a
+ * consumer has seen. Reads never see entities younger than the configured settle time, so that an entity inserted
+ * after a younger one, e.g. by a concurrent registration or another instance, cannot be skipped. The settle time must
+ * therefore exceed the time a registration may take to be written, which includes the max delay and timeout of the
+ * {@link RegistrationBatcher} if it is enabled.
+ * <p>
+ * Polls that find no changes wait for the {@link EntitiesRegisteredEvent}s of this instance. Registrations through
+ * other instances are only seen by the next poll.
+ */
+@Component
+public class EntityChangeFeed {
+
+  /**
+   * Constants.
+   */
+  public static final int MAX_SIZE = 1000;
+  private static final String CREATED_TIME_PROPERTY = "createdTime";
+  private static final List<String> KEYSET_PROPERTIES = ImmutableList.of(CREATED_TIME_PROPERTY, "id");
+  private static final Sort SORT = new Sort(ASC, KEYSET_PROPERTIES);
+
+  /**
+   * Configuration.
+   */
+  @Getter
+  private final long timeout;
+  private final long settle;
+
+  /**
+   * Dependencies.
+   */
+  private final EntityRepository repository;
+
+  /**
+   * State.
+   */
+  private final Set<Poll> polls = Sets.newConcurrentHashSet();
+  private final ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("entity-changes")
+      .setDaemon(true)
+      .build());
+  private long visibleTime;
+  private boolean scheduled;
+
+  @Autowired
+  public EntityChangeFeed(
+      @Value("${changes.timeout}") long timeout,
+      @Value("${changes.settle}") long settle,
+      @NonNull EntityRepository repository,
+      @NonNull RegistrationBatcher batcher) {
+    checkArgument(!batcher.isEnabled() || settle > batcher.getMaxDelay() + batcher.getTimeout(),
+        "Expected changes.settle to exceed registration.batch.maxDelay plus registration.batch.timeout: %s", settle);
+    this.timeout = timeout;
+    this.settle = settle;
+    this.repository = repository;
+  }
+
+  /**
+   * Reads the changes after {@code since}. If there are none, completes once there are. Cancel the returned future to
+   * stop waiting.
+   * 
+   * @param since the {@link EntityChanges#getNext() next} position of previous changes, or empty to start from the
+   * first registration
+   * @param size the max number of changes
+   * @throws IllegalArgumentException if {@code since} is not a position of this feed or {@code size} is out of range
+   */
+  public CompletableFuture<EntityChanges> poll(@NonNull String since, int size) {
+    val poll = new Poll(since, decode(since), checkSize(size));
+
+    // Registered before reading, so that registrations after the read wake it
+    polls.add(poll);
+    poll.future.whenComplete((changes, e) -> polls.remove(poll));
+    poll.check();
+
+    return poll.future;
+  }
+
+  /**
+   * Schedules a check of waiting polls once the registered entities have settled. Checks for bursts of registrations
+   * are coalesced.
+   */
+  @EventListener
+  public synchronized void registered(EntitiesRegisteredEvent event) {
+    // Creation times are assigned before the event is published
+    visibleTime = max(visibleTime, event.getTimestamp() + settle + 1);
+    scheduleCheck();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  private void check() {
+    val checkTime = currentTimeMillis();
+    for (val poll : polls) {
+      poll.check();
+    }
+
+    synchronized (this) {
+      scheduled = false;
+      if (visibleTime > checkTime) {
+        // Registered since the check was scheduled and not yet visible to it
+        scheduleCheck();
+      }
+    }
+  }
+
+  private void scheduleCheck() {
+    if (!scheduled) {
+      scheduled = true;
+      scheduler.schedule(this::check, max(0, visibleTime - currentTimeMillis()), MILLISECONDS);
+    }
+  }
+
+  private EntityChanges read(String since, Keyset after, int size) {
+    val query = new Query(Criteria.where(CREATED_TIME_PROPERTY).lt(currentTimeMillis() - settle));
+    KeysetSlice<Entity> slice = repository.findAfter(query, new PageRequest(0, size, SORT), after);
+    if (!slice.hasContent()) {
+      return EntityChanges.none(since);
+    }
+
+    val last = slice.getContent().get(slice.getNumberOfElements() - 1);
+    val next = new Keyset(KEYSET_PROPERTIES, Arrays.<Object> asList(last.getCreatedTime(), last.getId()));
+
+    return new EntityChanges(slice.getContent(), next.encode(), slice.getNext() == null);
+  }
+
+  private static Keyset decode(String since) {
+    if (since.isEmpty()) {
+      return null;
+    }
+
+    val keyset = Keyset.decode(since);
+    checkArgument(keyset.getProperties().equals(KEYSET_PROPERTIES), "Invalid position '%s'", since);
+    return keyset;
+  }
+
+  private static int checkSize(int size) {
+    checkArgument(size > 0 && size <= MAX_SIZE, "Expected a size between 1 and %s: %s", MAX_SIZE, size);
+    return size;
+  }
+
+  /**
+   * A poll waiting for changes.
+   */
+  @RequiredArgsConstructor
+  private class Poll {
+
+    private final String since;
+    private final Keyset after;
+    private final int size;
+    private final CompletableFuture<EntityChanges> future = new CompletableFuture<>();
+
+    void check() {
+      if (future.isDone()) {
+        return;
+      }
+
+      try {
+        val changes = read(since, after, size);
+        if (!changes.getContent().isEmpty()) {
+          future.complete(changes);
+        }
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+  }
+
+}
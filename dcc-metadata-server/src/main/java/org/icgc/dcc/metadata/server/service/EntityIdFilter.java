@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import lombok.NonNull;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bloom filter over the ids of all registered {@link Entity}s. Answers existence checks for ids that are definitely
+ * not registered without a database round trip.
+ * <p>
+ * The filter is built from a scan of the collection once the application is ready and is then updated on every
+ * registration. Until it is built every id is reported as possibly registered. Deleted ids remain in the filter, which
+ * only costs a database lookup.
+ * <p>
+ * The filter only learns of registrations made through this server instance. It must only be enabled when a single
+ * instance serves all registrations, otherwise ids registered elsewhere are reported absent until the next restart.
+ */
+@Slf4j
+@Component
+public class EntityIdFilter implements PublicMetrics {
+
+  /**
+   * Constants.
+   */
+  private static final String ID_FIELD_NAME = "id";
+  private static final String METRIC_PREFIX = "entity.filter";
+
+  /**
+   * Configuration.
+   */
+  private final boolean enabled;
+  private final int expectedInsertions;
+  private final double fpp;
+
+  /**
+   * Dependencies.
+   */
+  private final EntityRepository repository;
+
+  /**
+   * State.
+   */
+  private final BloomFilter<CharSequence> filter;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private volatile boolean ready;
+  private final AtomicLong absent = new AtomicLong();
+
+  @Autowired
+  public EntityIdFilter(
+      @Value("${entity.filter.enabled}") boolean enabled,
+      @Value("${entity.filter.expectedInsertions}") int expectedInsertions,
+      @Value("${entity.filter.fpp}") double fpp,
+      @NonNull EntityRepository repository) {
+    this.enabled = enabled;
+    this.expectedInsertions = expectedInsertions;
+    this.fpp = fpp;
+    this.repository = repository;
+    this.filter = enabled ? BloomFilter.create(Funnels.stringFunnel(UTF_8), expectedInsertions, fpp) : null;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void build() {
+    if (!enabled) {
+      return;
+    }
+
+    log.info("Building entity id filter for {} ids with fpp {}...", expectedInsertions, fpp);
+    val watch = Stopwatch.createStarted();
+    val query = new Query();
+    query.fields().include(ID_FIELD_NAME);
+
+    long count = 0;
+    try (val entities = repository.stream(query)) {
+      while (entities.hasNext()) {
+        add(entities.next().getId());
+        count++;
+      }
+    }
+
+    ready = true;
+    log.info("Built entity id filter of {} ids in {}", count, watch);
+    if (count > expectedInsertions) {
+      log.warn("Entity id filter holds {} ids, more than the expected {}. Its false positive rate is degraded.",
+          count, expectedInsertions);
+    }
+  }
+
+  /**
+   * @return {@code false} if the entity with {@code id} is definitely not registered
+   */
+  public boolean mightContain(@NonNull String id) {
+    if (!ready || read(id)) {
+      return true;
+    }
+
+    absent.incrementAndGet();
+    return false;
+  }
+
+  public void add(@NonNull String id) {
+    if (!enabled) {
+      return;
+    }
+
+    // Guava's BloomFilter is not thread safe. Its bits are also only guaranteed visible to readers through the lock.
+    lock.writeLock().lock();
+    try {
+      filter.put(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    if (!ready) {
+      return ImmutableList.of();
+    }
+
+    return ImmutableList.<Metric<?>> of(
+        new Metric<Long>(METRIC_PREFIX + ".absent", absent.get()),
+        new Metric<Double>(METRIC_PREFIX + ".fpp", getExpectedFpp()));
+  }
+
+  private boolean read(String id) {
+    lock.readLock().lock();
+    try {
+      return filter.mightContain(id);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private double getExpectedFpp() {
+    lock.readLock().lock();
+    try {
+      return filter.expectedFpp();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+}
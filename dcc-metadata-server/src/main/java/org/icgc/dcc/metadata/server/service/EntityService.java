@@ -17,13 +17,32 @@
  */
 package org.icgc.dcc.metadata.server.service;
 
-import org.icgc.dcc.common.core.util.UUID5;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.icgc.dcc.metadata.server.model.RegistrationResult.conflict;
+import static org.icgc.dcc.metadata.server.model.RegistrationResult.created;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.icgc.dcc.metadata.core.id.ObjectIds;
+import org.icgc.dcc.metadata.server.metrics.ServerMetrics;
 import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.model.RegistrationResult;
 import org.icgc.dcc.metadata.server.repository.EntityRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.stereotype.Service;
 
-import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -35,28 +54,213 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class EntityService {
 
+  /**
+   * Constants.
+   */
+  public static final String CONFLICTS_METRIC = "entity_conflicts_total";
+  public static final int MAX_KEYS = 1000;
+
   /**
    * Dependencies.
    */
   @Autowired
   private final EntityRepository repository;
+  @Autowired
+  private final EntityIdFilter idFilter;
+  @Autowired
+  private final ServerMetrics metrics;
+  @Autowired
+  private final ApplicationEventPublisher publisher;
+  @Autowired
+  private final RegistrationBatcher batcher;
 
+  /**
+   * Checks the {@link EntityIdFilter} before the repository, so ids that are definitely not registered are answered
+   * without a database lookup.
+   */
+  public boolean exists(@NonNull String id) {
+    return idFilter.mightContain(id) && repository.exists(id);
+  }
+
+  /**
+   * Registers {@code entity} with a single insert keyed on its deterministic id, so that concurrent registrations of
+   * the same file cannot both succeed. The insert is batched with concurrent registrations if the
+   * {@link RegistrationBatcher} is enabled.
+   * 
+   * @throws DuplicateEntityException if the entity is already registered
+   */
   @NonNull
   public Entity register(Entity entity) {
     log.info("Registering {}...", entity);
-    val existing = repository.findByGnosIdAndFileName(entity.getGnosId(), entity.getFileName());
-    if (existing != null) {
-      throw new DuplicateEntityException(existing);
-    }
-
     val id = resolveFileId(entity.getGnosId(), entity.getFileName());
     entity.setId(id);
     entity.setCreatedTime(System.currentTimeMillis());
 
-    val registered = repository.save(entity);
-    log.info("Successfully registered {}", entity);
+    try {
+      val registered = insert(entity);
+      idFilter.add(id);
+      publisher.publishEvent(new EntitiesRegisteredEvent(this, 1));
+      log.info("Successfully registered {}", entity);
+
+      return registered;
+    } catch (DuplicateKeyException e) {
+      val existing = findExisting(entity);
+      if (existing == null) {
+        // Removed since the insert failed
+        throw e;
+      }
+
+      // May have been registered through another instance
+      idFilter.add(existing.getId());
+      countConflicts(1);
+      throw new DuplicateEntityException(existing);
+    }
+  }
+
+  /**
+   * Registers {@code entities} in bulk. Entities that already exist, or that appear more than once in the batch, are
+   * reported as conflicts with the id of the existing entity rather than failing the whole batch.
+   * 
+   * @return a result for every entity, in the same order as {@code entities}
+   * @throws IllegalArgumentException if there are more than {@link #MAX_KEYS} entities
+   */
+  @NonNull
+  public List<RegistrationResult> registerAll(List<Entity> entities) {
+    checkArgument(entities.size() <= MAX_KEYS, "Expected at most %s entities: %s", MAX_KEYS, entities.size());
+    log.info("Registering {} entities...", entities.size());
+    val ids = Lists.<String> newArrayListWithCapacity(entities.size());
+    for (val entity : entities) {
+      val id = resolveFileId(entity.getGnosId(), entity.getFileName());
+      entity.setId(id);
+      ids.add(id);
+    }
+
+    val existingIds = Sets.newHashSet(repository.findExistingIds(ids));
+    for (val existingId : existingIds) {
+      idFilter.add(existingId);
+    }
+
+    val results = new RegistrationResult[entities.size()];
+    val pending = Lists.<Entity> newArrayList();
+    val pendingIndexes = Maps.<String, Integer> newHashMap();
+    val repeatIndexes = Lists.<Integer> newArrayList();
+    for (int i = 0; i < entities.size(); i++) {
+      val entity = entities.get(i);
+      if (existingIds.contains(entity.getId())) {
+        results[i] = conflict(entity.getId());
+        continue;
+      }
+
+      // Resolved below, once the first occurrence is
+      if (pendingIndexes.putIfAbsent(entity.getId(), i) != null) {
+        repeatIndexes.add(i);
+        continue;
+      }
+
+      pending.add(entity);
+    }
+
+    // As late as possible, since the change feed only waits a settle time for the insert to complete
+    val createdTime = System.currentTimeMillis();
+    for (val entity : pending) {
+      entity.setCreatedTime(createdTime);
+    }
+
+    // Duplicates here are entities registered concurrently since the lookup above, or under a different id
+    val duplicates = repository.bulkInsert(pending);
+    for (int j = 0; j < pending.size(); j++) {
+      val entity = pending.get(j);
+      val result = duplicates.contains(j) ? conflict(resolveExistingId(entity)) : created(entity);
+      results[pendingIndexes.get(entity.getId())] = result;
+      idFilter.add(result.getId());
+    }
+    for (val i : repeatIndexes) {
+      results[i] = conflict(results[pendingIndexes.get(entities.get(i).getId())].getId());
+    }
+
+    countConflicts(entities.size() - pending.size() + duplicates.size());
+
+    val registered = pending.size() - duplicates.size();
+    if (registered > 0) {
+      publisher.publishEvent(new EntitiesRegisteredEvent(this, registered));
+    }
+
+    log.info("Successfully registered {} of {} entities", registered, entities.size());
+
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Finds which of {@code keys} are registered, using a single query for those the id filter cannot rule out.
+   * 
+   * @param keys entities with either an id or a GNOS id and file name
+   * @return the ids of the registered {@code keys}
+   * @throws IllegalArgumentException if a key has neither, or there are more than {@link #MAX_KEYS} keys
+   */
+  @NonNull
+  public Set<String> findRegistered(List<Entity> keys) {
+    checkArgument(keys.size() <= MAX_KEYS, "Expected at most %s keys: %s", MAX_KEYS, keys.size());
+
+    val candidates = Sets.<String> newHashSetWithExpectedSize(keys.size());
+    for (val key : keys) {
+      val id = resolveId(key);
+      if (idFilter.mightContain(id)) {
+        candidates.add(id);
+      }
+    }
+
+    return repository.findExistingIds(candidates);
+  }
 
-    return registered;
+  private Entity insert(Entity entity) {
+    if (!batcher.isEnabled()) {
+      return repository.insert(entity);
+    }
+
+    try {
+      return batcher.insert(entity).get(batcher.getTimeout(), MILLISECONDS);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    } catch (TimeoutException e) {
+      // May still be inserted, in which case a retry is answered with a conflict
+      throw new QueryTimeoutException("Timed out after " + batcher.getTimeout() + " ms registering " + entity);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private void countConflicts(int conflicts) {
+    if (conflicts > 0) {
+      metrics.counter(CONFLICTS_METRIC).add(conflicts);
+    }
+  }
+
+  private static String resolveId(Entity key) {
+    if (key.getId() != null) {
+      return key.getId();
+    }
+
+    checkArgument(key.getGnosId() != null && key.getFileName() != null,
+        "Expected an id or a GNOS id and file name: %s", key);
+    return resolveFileId(key.getGnosId(), key.getFileName());
+  }
+
+  private Entity findExisting(Entity entity) {
+    val existing = repository.findOne(entity.getId());
+    if (existing != null) {
+      return existing;
+    }
+
+    // Registered under a different id, violating the unique (gnosId, fileName) index instead
+    return repository.findByGnosIdAndFileName(entity.getGnosId(), entity.getFileName());
+  }
+
+  private String resolveExistingId(Entity entity) {
+    val existing = findExisting(entity);
+
+    // Removed since the insert failed
+    return existing == null ? entity.getId() : existing.getId();
   }
 
   /**
@@ -65,9 +269,11 @@ public class EntityService {
    * <pre>
    * https://github.com/icgc-dcc/dcc-etl/blob/7630b0e7d5e70781ca6a26176bc84781ffc3cd60/dcc-etl-repo/src/main/java/org/icgc/dcc/etl/repo/core/RepositoryFileProcessor.java#L42
    * </pre>
+   * 
+   * @see ObjectIds
    */
-  private static String resolveFileId(String... parts) {
-    return UUID5.fromUTF8(UUID5.getNamespace(), Joiner.on('/').join(parts)).toString();
+  public static String resolveFileId(String gnosId, String fileName) {
+    return ObjectIds.resolve(gnosId, fileName);
   }
 
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.service;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.annotation.PreDestroy;
+
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Combines concurrent single {@link Entity} inserts into one lookup of the registered ids and one unordered bulk
+ * insert.
+ * <p>
+ * A batch is written once it holds the configured max number of entities, or once its first entity has waited for the
+ * configured max delay. Batches are written one at a time, so inserts arriving during a write form the next batch.
+ * <p>
+ * Inserts waiting when the batcher is shut down, or made after, fail with an {@link IllegalStateException}. Inserts
+ * that have waited longer than the configured timeout by the time their batch is written fail with a
+ * {@link QueryTimeoutException} instead of being written, so that an insert lands no later than its timeout, plus the
+ * duration of the write, after it was made.
+ */
+@Slf4j
+@Component
+public class RegistrationBatcher {
+
+  /**
+   * Configuration.
+   */
+  @Getter
+  private final boolean enabled;
+  private final int maxSize;
+  @Getter
+  private final long maxDelay;
+  @Getter
+  private final long timeout;
+
+  /**
+   * Dependencies.
+   */
+  private final EntityRepository repository;
+
+  /**
+   * State.
+   */
+  private final BlockingQueue<Insert> queue = new LinkedBlockingQueue<>();
+  private final ExecutorService writer;
+  private volatile boolean stopped;
+
+  @Autowired
+  public RegistrationBatcher(
+      @Value("${registration.batch.enabled}") boolean enabled,
+      @Value("${registration.batch.maxSize}") int maxSize,
+      @Value("${registration.batch.maxDelay}") long maxDelay,
+      @Value("${registration.batch.timeout}") long timeout,
+      @NonNull EntityRepository repository) {
+    this.enabled = enabled;
+    this.maxSize = maxSize;
+    this.maxDelay = maxDelay;
+    this.timeout = timeout;
+    this.repository = repository;
+    this.writer = enabled ? newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("registration-batcher")
+        .setDaemon(true)
+        .build()) : null;
+
+    if (enabled) {
+      log.info("Batching registrations of up to {} entities within {} ms", maxSize, maxDelay);
+      writer.execute(this::write);
+    }
+  }
+
+  /**
+   * Same as {@link EntityRepository#insert(Object)}, but batched with concurrent inserts.
+   * 
+   * @return completes with {@code entity} once inserted, or with a {@link DuplicateKeyException} if it is already
+   * registered. Completes with an {@link IllegalStateException} if the batcher is shut down.
+   */
+  public CompletableFuture<Entity> insert(@NonNull Entity entity) {
+    checkState(enabled, "Registration batching is disabled");
+    val insert = new Insert(entity);
+    queue.add(insert);
+
+    // Checked after queueing, since the writer drains the queue only once when it stops
+    if (stopped && queue.remove(insert)) {
+      insert.future.completeExceptionally(new IllegalStateException("Registration batcher was shut down"));
+    }
+
+    return insert.future;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (enabled) {
+      stopped = true;
+      writer.shutdownNow();
+    }
+  }
+
+  private void write() {
+    val batch = Lists.<Insert> newArrayListWithCapacity(maxSize);
+    Throwable failure;
+    try {
+      while (true) {
+        batch.add(queue.take());
+        Queues.drain(queue, batch, maxSize - 1, maxDelay, MILLISECONDS);
+
+        write(batch);
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      failure = new IllegalStateException("Registration batcher was shut down");
+    } catch (Throwable t) {
+      log.error("Registration batcher failed:", t);
+      failure = new IllegalStateException("Registration batcher failed", t);
+    }
+
+    stopped = true;
+    batch.addAll(queue);
+    for (val insert : batch) {
+      insert.future.completeExceptionally(failure);
+    }
+  }
+
+  private void write(List<Insert> batch) {
+    try {
+      val ids = Lists.<String> newArrayListWithCapacity(batch.size());
+      for (val insert : batch) {
+        ids.add(insert.entity.getId());
+      }
+
+      val registeredIds = Sets.newHashSet(repository.findExistingIds(ids));
+      val pending = Lists.<Insert> newArrayListWithCapacity(batch.size());
+      val pendingEntities = Lists.<Entity> newArrayListWithCapacity(batch.size());
+      val deadline = currentTimeMillis() - timeout;
+      for (val insert : batch) {
+        if (insert.time < deadline) {
+          // The caller has given up, and a late insert could be missed by the change feed
+          insert.future.completeExceptionally(new QueryTimeoutException("Timed out registering " + insert.entity));
+          continue;
+        }
+
+        // Also catches repeats within the batch, since the first occurrence is added here
+        if (registeredIds.add(insert.entity.getId())) {
+          pending.add(insert);
+          pendingEntities.add(insert.entity);
+        }
+      }
+
+      // Duplicates here are entities registered concurrently since the lookup above
+      val duplicates = repository.bulkInsert(pendingEntities);
+
+      // Only after the insert, so that callers of duplicates can find the registered entity
+      for (int j = 0; j < pending.size(); j++) {
+        if (!duplicates.contains(j)) {
+          pending.get(j).future.complete(pending.get(j).entity);
+        }
+      }
+      for (val insert : batch) {
+        if (!insert.future.isDone()) {
+          insert.future.completeExceptionally(new DuplicateKeyException("Already registered: " + insert.entity));
+        }
+      }
+    } catch (Throwable e) {
+      log.error("Could not write batch of {} registrations:", batch.size(), e);
+      for (val insert : batch) {
+        insert.future.completeExceptionally(e);
+      }
+    }
+  }
+
+  /**
+   * An entity waiting to be inserted.
+   */
+  @RequiredArgsConstructor
+  private static class Insert {
+
+    private final Entity entity;
+    private final long time = currentTimeMillis();
+    private final CompletableFuture<Entity> future = new CompletableFuture<>();
+
+  }
+
+}
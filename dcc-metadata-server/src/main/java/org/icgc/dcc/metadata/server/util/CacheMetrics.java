@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.util;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+
+import lombok.NoArgsConstructor;
+import lombok.val;
+
+/**
+ * Converts Guava {@link CacheStats} to actuator {@link Metric}s for use in {@link PublicMetrics}.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class CacheMetrics {
+
+  public static List<Metric<?>> getMetrics(String prefix, CacheStats stats, long size) {
+    val metrics = ImmutableList.<Metric<?>> builder()
+        .add(new Metric<Long>(prefix + ".size", size))
+        .add(new Metric<Long>(prefix + ".hit", stats.hitCount()))
+        .add(new Metric<Long>(prefix + ".miss", stats.missCount()))
+        .add(new Metric<Long>(prefix + ".eviction", stats.evictionCount()));
+
+    if (stats.requestCount() > 0) {
+      metrics.add(new Metric<Double>(prefix + ".hit.ratio", stats.hitRate()));
+    }
+    if (stats.loadCount() > 0) {
+      metrics.add(new Metric<Double>(prefix + ".load.time",
+          stats.averageLoadPenalty() / MILLISECONDS.toNanos(1)));
+    }
+
+    return metrics.build();
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.metadata.server.config.MetricsConfig.AUTH_FAILURES_METRIC;
+import static org.icgc.dcc.metadata.server.config.MetricsConfig.AUTH_METRIC;
+import static org.icgc.dcc.metadata.server.config.MetricsConfig.REPOSITORY_METRIC;
+import static org.icgc.dcc.metadata.server.config.MetricsConfig.SERVICE_METRIC;
+
+import org.icgc.dcc.metadata.server.metrics.ServerMetrics;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.icgc.dcc.metadata.server.service.EntityService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@ServerContextTest
+public class MetricsConfigTest {
+
+  private static final String ABSENT_ID = "absent";
+
+  @Autowired
+  EntityRepository repository;
+  @Autowired
+  EntityService service;
+  @Autowired
+  RemoteTokenServices remoteTokenServices;
+  @Autowired
+  ServerMetrics metrics;
+
+  @Test
+  public void testRepository_timed() {
+    assertThat(AopUtils.isAopProxy(repository)).isTrue();
+
+    long count = getCount(REPOSITORY_METRIC, "exists");
+    repository.exists(ABSENT_ID);
+
+    assertThat(getCount(REPOSITORY_METRIC, "exists")).isEqualTo(count + 1);
+  }
+
+  @Test
+  public void testService_timed() {
+    assertThat(AopUtils.isAopProxy(service)).isTrue();
+
+    long count = getCount(SERVICE_METRIC, "exists");
+    service.exists(ABSENT_ID);
+
+    assertThat(getCount(SERVICE_METRIC, "exists")).isEqualTo(count + 1);
+  }
+
+  @Test
+  public void testRemoteTokenServices_timed() {
+    assertThat(AopUtils.isAopProxy(remoteTokenServices)).isTrue();
+
+    long count = getCount(AUTH_METRIC, "readAccessToken");
+    long failures = metrics.counter(AUTH_FAILURES_METRIC).sum();
+    try {
+      // Not supported by remote token services, so fails without calling the authorization server
+      remoteTokenServices.readAccessToken("token");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+
+    assertThat(getCount(AUTH_METRIC, "readAccessToken")).isEqualTo(count + 1);
+    assertThat(metrics.counter(AUTH_FAILURES_METRIC).sum()).isEqualTo(failures + 1);
+  }
+
+  private long getCount(String name, String operation) {
+    return metrics.histogram(name, "operation", operation).snapshot().getCount();
+  }
+
+}
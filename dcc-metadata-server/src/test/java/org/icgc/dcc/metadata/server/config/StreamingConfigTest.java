@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.metadata.server.config.StreamingConfig.EXPORT_ATTRIBUTE;
+import static org.springframework.web.context.request.RequestAttributes.SCOPE_REQUEST;
+
+import org.icgc.dcc.metadata.server.config.StreamingConfig.ExportTimeoutInterceptor;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+
+import lombok.val;
+
+public class StreamingConfigTest {
+
+  private static final long DEFAULT_TIMEOUT = 30000;
+  private static final long EXPORT_TIMEOUT = 3600000;
+
+  MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+  StandardServletAsyncWebRequest request =
+      new StandardServletAsyncWebRequest(servletRequest, new MockHttpServletResponse());
+  ExportTimeoutInterceptor sut = new ExportTimeoutInterceptor(EXPORT_TIMEOUT);
+
+  @Test
+  public void testExport() throws Exception {
+    request.setAttribute(EXPORT_ATTRIBUTE, true, SCOPE_REQUEST);
+
+    val timeout = start();
+
+    assertThat(timeout).isEqualTo(EXPORT_TIMEOUT);
+  }
+
+  @Test
+  public void testOther() throws Exception {
+    val timeout = start();
+
+    assertThat(timeout).isEqualTo(DEFAULT_TIMEOUT);
+  }
+
+  private long start() throws Exception {
+    servletRequest.setAsyncSupported(true);
+    request.setTimeout(DEFAULT_TIMEOUT);
+    sut.beforeConcurrentHandling(request, () -> null);
+    request.startAsync();
+
+    return servletRequest.getAsyncContext().getTimeout();
+  }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.controller;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.query.DocumentCursor;
+import org.icgc.dcc.metadata.server.repository.EntityQuery;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.icgc.dcc.metadata.server.service.EntityService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.util.LinkedMultiValueMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+
+import lombok.val;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncEntityReadControllerTest {
+
+  private static final String ID = "123";
+  private static final long TIMEOUT = 1000L;
+
+  @Mock
+  EntityRepository repository;
+  @Mock
+  EntityService service;
+
+  MockMvc mockMvc;
+
+  @Test
+  public void getTest() throws Exception {
+    val entity = new Entity();
+    entity.setId(ID);
+    when(repository.findOne(ID)).thenReturn(entity);
+
+    perform(MoreExecutors.directExecutor(), get("/entities/" + ID))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id", is(ID)));
+  }
+
+  @Test
+  public void getTest_notFound() throws Exception {
+    perform(MoreExecutors.directExecutor(), get("/entities/" + ID))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void existsTest() throws Exception {
+    when(service.exists(ID)).thenReturn(true);
+
+    perform(MoreExecutors.directExecutor(), head("/entities/" + ID))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void findTest_noCount() throws Exception {
+    val entity = new Entity();
+    entity.setId(ID);
+    val slice = new SliceImpl<Entity>(ImmutableList.of(entity));
+    val query = EntityQuery.of(ImmutableMap.of("count", "false"), null);
+    when(repository.findSlice(eq(query), any(Pageable.class))).thenReturn(slice);
+
+    perform(MoreExecutors.directExecutor(), get("/entities?count=false"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].id", is(ID)));
+  }
+
+  @Test
+  public void rejectedTest() throws Exception {
+    Executor saturated = command -> {
+      throw new RejectedExecutionException();
+    };
+
+    perform(saturated, get("/entities/" + ID))
+        .andExpect(status().isServiceUnavailable());
+  }
+
+  @Test
+  public void findLeanTest_noCount() throws Exception {
+    val document = new BasicDBObject("_id", ID);
+    val cursor = mock(DBCursor.class);
+    when(cursor.hasNext()).thenReturn(true, false);
+    when(cursor.next()).thenReturn(document);
+    val query = EntityQuery.of(ImmutableMap.of("lean", "true", "count", "false"), null);
+    when(repository.findDocuments(eq(query), any(Pageable.class))).thenReturn(new DocumentCursor(cursor, 20, null));
+
+    val result = perform(MoreExecutors.directExecutor(), get("/entities?lean=true&count=false"))
+        // Streamed
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk());
+
+    // Streamed into the response of the dispatch that returned the stream
+    jsonPath("$.content[0].id", is(ID)).match(result);
+    jsonPath("$.last", is(true)).match(result);
+    verify(cursor).close();
+  }
+
+  @Test
+  public void findLeanTest_timedOut() throws Exception {
+    val cursor = mock(DBCursor.class);
+    when(repository.findDocuments(any(Query.class), any(Pageable.class)))
+        .thenReturn(new DocumentCursor(cursor, 20, null));
+    val reads = Lists.<Runnable> newArrayList();
+    val controller = new AsyncEntityReadController(repository, service, new ObjectMapper(), reads::add, TIMEOUT);
+
+    val result = controller.findLean(new LinkedMultiValueMap<>(), null, false, false, null, new PageRequest(0, 20));
+    // As if timed out before the read completes
+    result.setResult(new ResponseEntity<>(SERVICE_UNAVAILABLE));
+    reads.get(0).run();
+
+    verify(cursor).close();
+  }
+
+  private ResultActions perform(Executor executor, RequestBuilder builder) throws Exception {
+    val controller = new AsyncEntityReadController(repository, service, new ObjectMapper(), executor, TIMEOUT);
+    mockMvc = standaloneSetup(controller)
+        .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
+        .build();
+
+    val result = mockMvc.perform(builder)
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    return mockMvc.perform(asyncDispatch(result));
+  }
+
+}
@@ -20,37 +20,73 @@ package org.icgc.dcc.metadata.server.controller;
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
 import static java.lang.String.format;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.icgc.dcc.metadata.core.http.Headers.ENTITY_ID_HEADER;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
 
 import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.model.EntityChanges;
+import org.icgc.dcc.metadata.server.model.RegistrationResult;
+import org.icgc.dcc.metadata.server.query.DocumentCursor;
+import org.icgc.dcc.metadata.server.query.Keyset;
+import org.icgc.dcc.metadata.server.query.KeysetSlice;
+import org.icgc.dcc.metadata.server.repository.EntityQuery;
 import org.icgc.dcc.metadata.server.repository.EntityRepository;
 import org.icgc.dcc.metadata.server.service.DuplicateEntityException;
+import org.icgc.dcc.metadata.server.service.EntityChangeFeed;
 import org.icgc.dcc.metadata.server.service.EntityService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.ResultHandler;
+import org.springframework.test.web.servlet.ResultMatcher;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
 
 import lombok.val;
 
@@ -71,12 +107,18 @@ public class EntityControllerTest {
   EntityRepository repository;
   @Mock
   EntityService service;
+  @Mock
+  EntityChangeFeed feed;
+  @Spy
+  ObjectMapper mapper = new ObjectMapper();
 
   Entity responseEntity1;
   Entity responseEntity2;
 
   @InjectMocks
   EntityController controller;
+  @InjectMocks
+  EntityReadController readController;
 
   private MockMvc mockMvc;
 
@@ -85,7 +127,7 @@ public class EntityControllerTest {
     responseEntity1 = createEntity(ID_1, GNOS_ID_1, FILE_NAME_1, PROJECT_CODE_1, CONTROLLED, CREATED_TIME);
     responseEntity2 = createEntity(ID_2, GNOS_ID_2, FILE_NAME_2, PROJECT_CODE_1, CONTROLLED, CREATED_TIME);
 
-    mockMvc = standaloneSetup(controller)
+    mockMvc = standaloneSetup(controller, readController)
         .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
         .build();
   }
@@ -94,7 +136,7 @@ public class EntityControllerTest {
   public void findTest_all() throws Exception {
     val page = new PageImpl<Entity>(ImmutableList.of(responseEntity1, responseEntity2));
     val params = ImmutableMap.<String, String> of();
-    when(repository.findAll(eq(params), eq(null), any(Pageable.class))).thenReturn(page);
+    when(repository.findAll(eq(EntityQuery.of(params, null)), any(Pageable.class))).thenReturn(page);
 
     mockMvc.perform(get("/entities"))
         .andExpect(status().isOk())
@@ -107,7 +149,7 @@ public class EntityControllerTest {
   public void findTest_gnosId() throws Exception {
     val page = new PageImpl<Entity>(ImmutableList.of(responseEntity1));
     val params = ImmutableMap.of("gnosId", GNOS_ID_1);
-    when(repository.findAll(eq(params), eq(null), any(Pageable.class))).thenReturn(page);
+    when(repository.findAll(eq(EntityQuery.of(params, null)), any(Pageable.class))).thenReturn(page);
 
     mockMvc.perform(get("/entities?gnosId=" + GNOS_ID_1))
         .andExpect(status().isOk())
@@ -115,13 +157,46 @@ public class EntityControllerTest {
         .andExpect(jsonPath("$.content[0].id", is(ID_1)));
   }
 
+  @Test
+  public void findTest_gnosIds() throws Exception {
+    val page = new PageImpl<Entity>(ImmutableList.of(responseEntity1, responseEntity2));
+    val params = ImmutableMap.of("gnosId", GNOS_ID_1 + "," + GNOS_ID_2);
+    when(repository.findAll(eq(EntityQuery.of(params, null)), any(Pageable.class))).thenReturn(page);
+
+    mockMvc.perform(get(format("/entities?gnosId=%s&gnosId=%s", GNOS_ID_1, GNOS_ID_2)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.numberOfElements", is(2)));
+  }
+
+  @Test
+  public void searchTest_gnosIds() throws Exception {
+    val page = new PageImpl<Entity>(ImmutableList.of(responseEntity1, responseEntity2));
+    val params = ImmutableMap.of("gnosId", GNOS_ID_1 + "," + GNOS_ID_2);
+    when(repository.findAll(eq(EntityQuery.of(params, null)), any(Pageable.class))).thenReturn(page);
+
+    mockMvc.perform(post("/entities/_search")
+        .contentType(APPLICATION_FORM_URLENCODED)
+        .param("gnosId", GNOS_ID_1)
+        .param("gnosId", GNOS_ID_2))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.numberOfElements", is(2)));
+  }
+
+  @Test
+  public void searchTest_invalid() throws Exception {
+    mockMvc.perform(post("/entities/_search")
+        .contentType(APPLICATION_FORM_URLENCODED)
+        .param("projectcode", PROJECT_CODE_1))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   public void findTest_fileName() throws Exception {
     val page = new PageImpl<Entity>(ImmutableList.of(responseEntity1));
     when(repository.findByFileName(eq(FILE_NAME_1), any(Pageable.class))).thenReturn(page);
 
     val params = ImmutableMap.of("fileName", FILE_NAME_1);
-    when(repository.findAll(eq(params), eq(null), any(Pageable.class))).thenReturn(page);
+    when(repository.findAll(eq(EntityQuery.of(params, null)), any(Pageable.class))).thenReturn(page);
 
     mockMvc.perform(get("/entities?fileName=" + FILE_NAME_1))
         .andExpect(status().isOk())
@@ -133,7 +208,7 @@ public class EntityControllerTest {
   public void findTest_fileName_gnosId() throws Exception {
     val page = new PageImpl<Entity>(ImmutableList.of(responseEntity1));
     val params = ImmutableMap.of("gnosId", GNOS_ID_1, "fileName", FILE_NAME_1);
-    when(repository.findAll(eq(params), eq(null), any(Pageable.class))).thenReturn(page);
+    when(repository.findAll(eq(EntityQuery.of(params, null)), any(Pageable.class))).thenReturn(page);
 
     mockMvc.perform(get(format("/entities?fileName=%s&gnosId=%s", FILE_NAME_1, GNOS_ID_1)))
         .andExpect(status().isOk())
@@ -141,6 +216,217 @@ public class EntityControllerTest {
         .andExpect(jsonPath("$.content[0].id", is(ID_1)));
   }
 
+  @Test
+  public void findTest_noCount() throws Exception {
+    val slice = new SliceImpl<Entity>(ImmutableList.of(responseEntity1), new PageRequest(0, 1), true);
+    val params = ImmutableMap.of("count", "false");
+    when(repository.findSlice(eq(EntityQuery.of(params, null)), any(Pageable.class))).thenReturn(slice);
+
+    mockMvc.perform(get("/entities?count=false"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.numberOfElements", is(1)))
+        .andExpect(jsonPath("$.last", is(false)))
+        .andExpect(jsonPath("$.content[0].id", is(ID_1)));
+  }
+
+  @Test
+  public void findTest_estimate() throws Exception {
+    val page = new PageImpl<Entity>(ImmutableList.of(responseEntity1, responseEntity2));
+    val params = ImmutableMap.of("estimate", "true");
+    when(repository.findAll(eq(EntityQuery.of(params, null)), any(Pageable.class), eq(true))).thenReturn(page);
+
+    mockMvc.perform(get("/entities?estimate=true"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements", is(2)));
+  }
+
+  @Test
+  public void findTest_after() throws Exception {
+    val after = new Keyset(ImmutableList.of("id"), ImmutableList.<Object> of(ID_1));
+    val next = new Keyset(ImmutableList.of("id"), ImmutableList.<Object> of(ID_2));
+    val slice = new KeysetSlice<Entity>(ImmutableList.of(responseEntity2), new PageRequest(0, 1), next);
+    val params = ImmutableMap.of("after", after.encode());
+    when(repository.findAfter(eq(EntityQuery.of(params, null)), any(Pageable.class), eq(after))).thenReturn(slice);
+
+    mockMvc.perform(get("/entities?after=" + after.encode()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].id", is(ID_2)))
+        .andExpect(jsonPath("$.next", is(next.encode())));
+  }
+
+  @Test
+  public void findTest_after_invalid() throws Exception {
+    mockMvc.perform(get("/entities?after=invalid"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void findTest_unknownFilter() throws Exception {
+    mockMvc.perform(get("/entities?projectcode=" + PROJECT_CODE_1))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void findTest_invalidFilter() throws Exception {
+    mockMvc.perform(get("/entities?createdAfter=yesterday"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void findLeanTest() throws Exception {
+    val params = ImmutableMap.of("lean", "true", "fields", "id,gnosId");
+    val fields = ImmutableList.of("id", "gnosId");
+    val query = EntityQuery.of(params, fields);
+    val documents = cursor(20, null, document(ID_1, GNOS_ID_1), document(ID_2, GNOS_ID_2));
+    when(repository.count(eq(query), eq(false))).thenReturn(2L);
+    when(repository.findDocuments(eq(query), any(Pageable.class))).thenReturn(documents);
+
+    performStreaming(get("/entities?lean=true&fields=id,gnosId"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalElements", is(2)))
+        .andExpect(jsonPath("$.content", hasSize(2)))
+        .andExpect(jsonPath("$.content[0].id", is(ID_1)))
+        .andExpect(jsonPath("$.content[0].gnosId", is(GNOS_ID_1)))
+        .andExpect(jsonPath("$.content[0]._id").doesNotExist())
+        .andExpect(jsonPath("$.content[0]._class").doesNotExist())
+        .andExpect(jsonPath("$.numberOfElements").doesNotExist())
+        .andExpect(jsonPath("$.last").doesNotExist());
+    verify(documents).close();
+  }
+
+  @Test
+  public void findLeanTest_noCount() throws Exception {
+    val query = EntityQuery.of(ImmutableMap.of("lean", "true", "count", "false"), null);
+    val documents = cursor(1, null, document(ID_1, GNOS_ID_1), document(ID_2, GNOS_ID_2));
+    when(repository.findDocuments(eq(query), any(Pageable.class))).thenReturn(documents);
+
+    performStreaming(get("/entities?lean=true&count=false"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.last", is(false)))
+        .andExpect(jsonPath("$.content", hasSize(1)))
+        .andExpect(jsonPath("$.content[0].id", is(ID_1)))
+        .andExpect(jsonPath("$.totalElements").doesNotExist());
+    verify(repository, never()).count(any(Query.class), anyBoolean());
+  }
+
+  @Test
+  public void searchLeanTest() throws Exception {
+    val query = EntityQuery.of(ImmutableMap.of("lean", "true", "count", "false", "gnosId", GNOS_ID_1), null);
+    val documents = cursor(1, null, document(ID_1, GNOS_ID_1));
+    when(repository.findDocuments(eq(query), any(Pageable.class))).thenReturn(documents);
+
+    performStreaming(post("/entities/_search")
+        .contentType(APPLICATION_FORM_URLENCODED)
+        .param("lean", "true")
+        .param("count", "false")
+        .param("gnosId", GNOS_ID_1))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.last", is(true)))
+        .andExpect(jsonPath("$.content[0].id", is(ID_1)))
+        .andExpect(jsonPath("$.totalElements").doesNotExist());
+  }
+
+  @Test
+  public void findLeanTest_after() throws Exception {
+    val after = new Keyset(ImmutableList.of("id"), ImmutableList.<Object> of(ID_1));
+    val next = new Keyset(ImmutableList.of("id"), ImmutableList.<Object> of(ID_2));
+    val query = EntityQuery.of(ImmutableMap.of("lean", "true", "after", after.encode()), null);
+    val documents = cursor(1, next, document(ID_2, GNOS_ID_2), document("other", GNOS_ID_2));
+    when(repository.findDocumentsAfter(eq(query), any(Pageable.class), eq(after))).thenReturn(documents);
+
+    performStreaming(get("/entities?lean=true&after=" + after.encode()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content", hasSize(1)))
+        .andExpect(jsonPath("$.content[0].id", is(ID_2)))
+        .andExpect(jsonPath("$.next", is(next.encode())))
+        .andExpect(jsonPath("$.last").doesNotExist());
+  }
+
+  @Test
+  public void findLeanTest_afterLast() throws Exception {
+    val next = new Keyset(ImmutableList.of("id"), ImmutableList.<Object> of(ID_2));
+    val query = EntityQuery.of(ImmutableMap.of("lean", "true", "after", ""), null);
+    val documents = cursor(1, next, document(ID_2, GNOS_ID_2));
+    when(repository.findDocumentsAfter(eq(query), any(Pageable.class), eq(null))).thenReturn(documents);
+
+    performStreaming(get("/entities?lean=true&after="))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].id", is(ID_2)))
+        .andExpect(jsonPath("$.next").doesNotExist());
+  }
+
+  @Test
+  public void findLeanTest_afterOtherSort() throws Exception {
+    when(repository.findDocumentsAfter(any(Query.class), any(Pageable.class), any(Keyset.class)))
+        .thenThrow(new IllegalArgumentException());
+
+    val after = new Keyset(ImmutableList.of("id"), ImmutableList.<Object> of(ID_1));
+    mockMvc.perform(get("/entities?lean=true&sort=gnosId&after=" + after.encode()))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void findLeanTest_unknownFilter() throws Exception {
+    mockMvc.perform(get("/entities?lean=true&projectcode=" + PROJECT_CODE_1))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void exportTest_unknownFilter() throws Exception {
+    mockMvc.perform(get("/entities/_export?projectcode=" + PROJECT_CODE_1))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void exportTest() throws Exception {
+    val params = ImmutableMap.of("projectCode", PROJECT_CODE_1, "fields", "id,gnosId");
+    val fields = ImmutableList.of("id", "gnosId");
+    val query = EntityQuery.of(params, fields);
+    when(repository.stream(eq(query))).thenReturn(iterator(responseEntity1, responseEntity2));
+
+    val result = mockMvc.perform(get("/entities/_export?projectCode=" + PROJECT_CODE_1 + "&fields=id,gnosId"))
+        .andExpect(request().asyncStarted())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk());
+
+    // Streamed into the response of the initial request
+    val lines = result.getResponse().getContentAsString().split("\n");
+
+    assertThat(lines).hasSize(2);
+    assertThat(mapper.readValue(lines[0], Entity.class)).isEqualTo(responseEntity1);
+    assertThat(mapper.readValue(lines[1], Entity.class)).isEqualTo(responseEntity2);
+  }
+
+  @Test
+  public void changesTest() throws Exception {
+    val changes = new EntityChanges(ImmutableList.of(responseEntity1), "next", true);
+    when(feed.poll("", 100)).thenReturn(completedFuture(changes));
+
+    val result = mockMvc.perform(get("/entities/_changes"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].id", is(ID_1)))
+        .andExpect(jsonPath("$.next", is("next")))
+        .andExpect(jsonPath("$.last", is(true)));
+  }
+
+  @Test
+  public void changesTest_invalidPosition() throws Exception {
+    when(feed.poll("invalid", 100)).thenThrow(new IllegalArgumentException());
+
+    val result = mockMvc.perform(get("/entities/_changes?since=invalid"))
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   public void getTest() throws Exception {
     when(repository.findOne(ID_1)).thenReturn(responseEntity1);
@@ -158,14 +444,14 @@ public class EntityControllerTest {
 
   @Test
   public void existsTest() throws Exception {
-    when(repository.exists(ID_1)).thenReturn(TRUE);
+    when(service.exists(ID_1)).thenReturn(TRUE);
     mockMvc.perform(head("/entities/" + ID_1))
         .andExpect(status().isOk());
   }
 
   @Test
   public void existsTest_notFound() throws Exception {
-    when(repository.exists(ID_1)).thenReturn(FALSE);
+    when(service.exists(ID_1)).thenReturn(FALSE);
     mockMvc.perform(head("/entities/" + ID_1))
         .andExpect(status().isNotFound());
   }
@@ -203,6 +489,67 @@ public class EntityControllerTest {
         .andExpect(header().string(ENTITY_ID_HEADER, ID_1));
   }
 
+  @Test
+  public void registerTest_bulk() throws Exception {
+    when(service.registerAll(anyListOf(Entity.class))).thenReturn(ImmutableList.of(
+        RegistrationResult.created(responseEntity1),
+        RegistrationResult.conflict(ID_2)));
+
+    mockMvc.perform(post("/entities/_bulk")
+        .contentType(APPLICATION_JSON)
+        .content(format("[%s,%s]",
+            createEntityAsString(GNOS_ID_1, FILE_NAME_1, PROJECT_CODE_1, CONTROLLED),
+            createEntityAsString(GNOS_ID_2, FILE_NAME_2, PROJECT_CODE_1, CONTROLLED))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].status", is("CREATED")))
+        .andExpect(jsonPath("$[0].id", is(ID_1)))
+        .andExpect(jsonPath("$[0].entity.gnosId", is(GNOS_ID_1)))
+        .andExpect(jsonPath("$[1].status", is("CONFLICT")))
+        .andExpect(jsonPath("$[1].id", is(ID_2)));
+  }
+
+  @Test
+  public void registerTest_bulkTooLarge() throws Exception {
+    when(service.registerAll(anyListOf(Entity.class))).thenThrow(new IllegalArgumentException());
+
+    mockMvc.perform(post("/entities/_bulk")
+        .contentType(APPLICATION_JSON)
+        .content(format("[%s]", createEntityAsString(GNOS_ID_1, FILE_NAME_1, PROJECT_CODE_1, CONTROLLED))))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void existsTest_bulk() throws Exception {
+    when(service.findRegistered(anyListOf(Entity.class))).thenReturn(ImmutableSet.of(ID_1));
+
+    mockMvc.perform(post("/entities/_exists")
+        .contentType(APPLICATION_JSON)
+        .content(format("[{\"id\":\"%s\"},{\"gnosId\":\"%s\",\"fileName\":\"%s\"}]", ID_1, GNOS_ID_2, FILE_NAME_2)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0]", is(ID_1)));
+  }
+
+  @Test
+  public void existsTest_bulkWithoutKey() throws Exception {
+    when(service.findRegistered(anyListOf(Entity.class))).thenThrow(new IllegalArgumentException());
+
+    mockMvc.perform(post("/entities/_exists")
+        .contentType(APPLICATION_JSON)
+        .content(format("[{\"gnosId\":\"%s\"}]", GNOS_ID_2)))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void validationTest_bulkWithoutProjectCode() throws Exception {
+    mockMvc.perform(post("/entities/_bulk")
+        .contentType(APPLICATION_JSON)
+        .content(format("[%s,%s]",
+            createEntityAsString(GNOS_ID_1, FILE_NAME_1, PROJECT_CODE_1, CONTROLLED),
+            createEntityAsString(GNOS_ID_2, FILE_NAME_2, CONTROLLED))))
+        .andExpect(status().isBadRequest());
+  }
+
   /**
    * Trigger validation by registering a new Entity via REST client to endpoint
    * @throws Exception
@@ -227,6 +574,27 @@ public class EntityControllerTest {
         .andExpect(status().is2xxSuccessful());
   }
 
+  private static CloseableIterator<Entity> iterator(Entity... entities) {
+    val iterator = ImmutableList.copyOf(entities).iterator();
+    return new CloseableIterator<Entity>() {
+
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void close() {
+      }
+
+    };
+  }
+
   private static String createEntityAsString(String gnosId, String fileName, String projectCode, String access) {
     return format("{\"gnosId\":\"%s\",\"fileName\":\"%s\",\"projectCode\":\"%s\",\"access\":\"%s\"}", gnosId,
         fileName, projectCode, access);
@@ -255,4 +623,49 @@ public class EntityControllerTest {
     return result;
   }
 
+  private ResultActions performStreaming(RequestBuilder builder) throws Exception {
+    val result = mockMvc.perform(builder)
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(result));
+
+    // Streamed into the response of the initial request
+    return new ResultActions() {
+
+      @Override
+      public ResultActions andExpect(ResultMatcher matcher) throws Exception {
+        matcher.match(result);
+        return this;
+      }
+
+      @Override
+      public ResultActions andDo(ResultHandler handler) throws Exception {
+        handler.handle(result);
+        return this;
+      }
+
+      @Override
+      public MvcResult andReturn() {
+        return result;
+      }
+
+    };
+  }
+
+  /**
+   * @param next the keyset of every document, or {@code null} unless keyset paginated
+   */
+  private static DocumentCursor cursor(int pageSize, Keyset next, DBObject... documents) {
+    val iterator = Iterators.forArray(documents);
+    val cursor = mock(DBCursor.class);
+    when(cursor.hasNext()).then(invocation -> iterator.hasNext());
+    when(cursor.next()).then(invocation -> iterator.next());
+
+    return spy(new DocumentCursor(cursor, pageSize, next == null ? null : document -> next));
+  }
+
+  private static DBObject document(String id, String gnosId) {
+    return new BasicDBObject("_id", id).append("_class", Entity.class.getName()).append("gnosId", gnosId);
+  }
+
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.endpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.domain.Sort.Direction.ASC;
+
+import java.util.List;
+import java.util.Map;
+
+import org.icgc.dcc.metadata.server.config.ServerContextTest;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.google.common.collect.ImmutableMap;
+
+import lombok.val;
+
+@RunWith(SpringRunner.class)
+@ServerContextTest
+public class IndexesEndpointTest {
+
+  @Autowired
+  IndexesEndpoint endpoint;
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testInvoke() {
+    val report = endpoint.invoke();
+
+    val indexes = (List<Map<String, Object>>) report.get("indexes");
+    assertThat(indexes).extracting("name")
+        .contains("_id_", "gnosId_fileName", "createdTime_id", "projectCode", "access");
+    assertThat(find(indexes, "createdTime_id").get("key"))
+        .isEqualTo(ImmutableMap.of("createdTime", ASC, "_id", ASC));
+    assertThat(find(indexes, "gnosId_fileName").get("unique")).isEqualTo(true);
+
+    val coverage = (Map<String, Object>) report.get("coverage");
+    assertThat(coverage.get("id")).isEqualTo("_id_");
+    assertThat(coverage.get("gnosId")).isEqualTo("gnosId_fileName");
+    assertThat(coverage.get("createdTime")).isEqualTo("createdTime_id");
+    assertThat((List<String>) report.get("uncovered")).containsExactly("fileName");
+  }
+
+  private static Map<String, Object> find(List<Map<String, Object>> indexes, String name) {
+    for (val index : indexes) {
+      if (name.equals(index.get("name"))) {
+        return index;
+      }
+    }
+
+    throw new AssertionError("No index " + name);
+  }
+
+}
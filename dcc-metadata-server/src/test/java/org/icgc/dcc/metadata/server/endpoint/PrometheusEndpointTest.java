@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.endpoint;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.icgc.dcc.metadata.server.metrics.ServerMetrics;
+import org.junit.Test;
+
+import lombok.val;
+
+public class PrometheusEndpointTest {
+
+  ServerMetrics metrics = new ServerMetrics();
+  PrometheusEndpoint sut = new PrometheusEndpoint(metrics);
+
+  @Test
+  public void testInvoke() {
+    metrics.histogram("request_seconds", "uri", "/entities/{id}").record(MILLISECONDS.toNanos(3));
+    metrics.histogram("request_seconds", "uri", "/entities").record(MILLISECONDS.toNanos(30));
+    metrics.counter("conflicts_total").add(2);
+
+    val text = sut.invoke();
+
+    assertThat(text)
+        .containsOnlyOnce("# TYPE request_seconds histogram\n")
+        .contains("request_seconds_bucket{uri=\"/entities/{id}\",le=\"0.0025\"} 0\n")
+        .contains("request_seconds_bucket{uri=\"/entities/{id}\",le=\"0.005\"} 1\n")
+        .contains("request_seconds_bucket{uri=\"/entities/{id}\",le=\"+Inf\"} 1\n")
+        .contains("request_seconds_sum{uri=\"/entities/{id}\"} 0.003\n")
+        .contains("request_seconds_count{uri=\"/entities\"} 1\n")
+        .contains("# TYPE conflicts_total counter\nconflicts_total 2\n");
+  }
+
+}
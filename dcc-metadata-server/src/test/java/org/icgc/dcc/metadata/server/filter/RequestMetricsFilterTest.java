@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.metadata.server.filter.RequestMetricsFilter.METRIC_NAME;
+import static org.springframework.web.servlet.HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE;
+
+import org.icgc.dcc.metadata.server.metrics.ServerMetrics;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import lombok.SneakyThrows;
+import lombok.val;
+
+public class RequestMetricsFilterTest {
+
+  ServerMetrics metrics = new ServerMetrics();
+  RequestMetricsFilter sut = new RequestMetricsFilter(metrics);
+
+  @Test
+  public void testDoFilter() {
+    filter("/entities/{id}", 200);
+    filter("/entities/{id}", 200);
+    filter("/entities/{id}", 404);
+    filter("/entities", 200);
+
+    assertThat(getCount("/entities/{id}", "200")).isEqualTo(2);
+    assertThat(getCount("/entities/{id}", "404")).isEqualTo(1);
+    assertThat(getCount("/entities", "200")).isEqualTo(1);
+    assertThat(metrics.getHistograms()).hasSize(3);
+  }
+
+  @SneakyThrows
+  private void filter(String pattern, int status) {
+    val request = new MockHttpServletRequest("GET", "/");
+    val response = new MockHttpServletResponse();
+    sut.doFilter(request, response, (req, res) -> {
+      req.setAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+      response.setStatus(status);
+    });
+  }
+
+  private long getCount(String uri, String status) {
+    return metrics.histogram(METRIC_NAME, "method", "GET", "uri", uri, "status", status).snapshot().getCount();
+  }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.metrics;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import lombok.val;
+
+public class LatencyHistogramTest {
+
+  LatencyHistogram sut = new LatencyHistogram();
+
+  @Test
+  public void testSnapshot_empty() {
+    val snapshot = sut.snapshot();
+
+    assertThat(snapshot.getCount()).isZero();
+    assertThat(snapshot.getQuantile(0.99)).isZero();
+    assertThat(snapshot.getMean()).isZero();
+  }
+
+  @Test
+  public void testRecord() {
+    sut.record(MICROSECONDS.toNanos(100));
+    sut.record(MILLISECONDS.toNanos(1));
+    sut.record(MILLISECONDS.toNanos(3));
+    sut.record(SECONDS.toNanos(60));
+
+    val snapshot = sut.snapshot();
+    assertThat(snapshot.getCount()).isEqualTo(4);
+    assertThat(snapshot.getSum()).isEqualTo(SECONDS.toNanos(60) + MILLISECONDS.toNanos(4) + MICROSECONDS.toNanos(100));
+
+    // Bounds are inclusive
+    val bucketCounts = snapshot.getBucketCounts();
+    assertThat(bucketCounts[0]).isEqualTo(1);
+    assertThat(bucketCounts[1]).isEqualTo(1);
+    assertThat(bucketCounts[3]).isEqualTo(1);
+    assertThat(bucketCounts[bucketCounts.length - 1]).isEqualTo(1);
+  }
+
+  @Test
+  public void testGetQuantile() {
+    // Uniform over the (5ms, 10ms] bucket
+    for (int i = 0; i < 100; i++) {
+      sut.record(MILLISECONDS.toNanos(7));
+    }
+
+    val snapshot = sut.snapshot();
+    assertThat(snapshot.getQuantile(0.5)).isEqualTo(MICROSECONDS.toNanos(7500));
+    assertThat(snapshot.getQuantile(0.99)).isEqualTo(MICROSECONDS.toNanos(9950));
+    assertThat(snapshot.getQuantile(1)).isEqualTo(MILLISECONDS.toNanos(10));
+  }
+
+  @Test
+  public void testGetQuantile_unbounded() {
+    sut.record(SECONDS.toNanos(60));
+
+    // Values beyond the last bound are reported as the last bound
+    assertThat(sut.snapshot().getQuantile(0.99)).isEqualTo(SECONDS.toNanos(10));
+  }
+
+}
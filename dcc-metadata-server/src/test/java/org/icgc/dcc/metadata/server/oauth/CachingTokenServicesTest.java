@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.oauth;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+import lombok.val;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingTokenServicesTest {
+
+  private static final String TOKEN = "token";
+
+  @Mock
+  ResourceServerTokenServices delegate;
+
+  CachingTokenServices sut;
+
+  @Before
+  public void setUp() {
+    sut = new CachingTokenServices(delegate, 10, HOURS.toMillis(1));
+  }
+
+  @Test
+  public void testLoadAuthentication_cached() {
+    when(delegate.loadAuthentication(TOKEN)).thenReturn(createAuthentication(HOURS.toMillis(1)));
+
+    val first = sut.loadAuthentication(TOKEN);
+    val second = sut.loadAuthentication(TOKEN);
+
+    verify(delegate, times(1)).loadAuthentication(TOKEN);
+    assertThat(first).isNotSameAs(second);
+    assertThat(first.getOAuth2Request()).isEqualTo(second.getOAuth2Request());
+    assertThat(sut.metrics()).extracting("name", "value").contains(
+        tuple("auth.cache.hit", 1L),
+        tuple("auth.cache.miss", 1L));
+  }
+
+  @Test
+  public void testLoadAuthentication_expired() {
+    when(delegate.loadAuthentication(TOKEN)).thenReturn(createAuthentication(-HOURS.toMillis(1)));
+
+    sut.loadAuthentication(TOKEN);
+    sut.loadAuthentication(TOKEN);
+
+    // Each lookup finds the cached token past its expiration
+    verify(delegate, times(3)).loadAuthentication(TOKEN);
+  }
+
+  @Test(expected = InvalidTokenException.class)
+  public void testLoadAuthentication_invalid() {
+    when(delegate.loadAuthentication(TOKEN)).thenThrow(new InvalidTokenException(TOKEN));
+
+    sut.loadAuthentication(TOKEN);
+  }
+
+  @Test
+  public void testLoadAuthentication_concurrent() throws Exception {
+    val started = new CountDownLatch(1);
+    when(delegate.loadAuthentication(TOKEN)).then(invocation -> {
+      started.await();
+      MILLISECONDS.sleep(100);
+      return createAuthentication(HOURS.toMillis(1));
+    });
+
+    val executor = Executors.newFixedThreadPool(4);
+    val results = Lists.<Future<OAuth2Authentication>> newArrayList();
+    for (int i = 0; i < 4; i++) {
+      results.add(executor.submit(() -> sut.loadAuthentication(TOKEN)));
+    }
+    started.countDown();
+    for (val result : results) {
+      assertThat(result.get(5, SECONDS)).isNotNull();
+    }
+    executor.shutdown();
+
+    verify(delegate, times(1)).loadAuthentication(TOKEN);
+  }
+
+  private static OAuth2Authentication createAuthentication(long expiresIn) {
+    val exp = MILLISECONDS.toSeconds(System.currentTimeMillis() + expiresIn);
+    return new ExpiringAccessTokenConverter().extractAuthentication(ImmutableMap.of(
+        "client_id", "client",
+        "scope", Lists.newArrayList("collab.upload"),
+        "exp", exp));
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.query;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
+
+import lombok.val;
+
+public class KeysetTest {
+
+  @Test
+  public void testDecode() {
+    val keyset = new Keyset(ImmutableList.of("createdTime", "gnosId", "id"), Arrays.<Object> asList(1475280000000L, null, "123"));
+
+    assertThat(Keyset.decode(keyset.encode())).isEqualTo(keyset);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecode_operator() {
+    Keyset.decode(encode("{\"properties\":[\"id\"],\"values\":[{\"$ne\":null}]}"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecode_array() {
+    Keyset.decode(encode("{\"properties\":[\"id\"],\"values\":[[\"123\"]]}"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecode_invalid() {
+    Keyset.decode("invalid");
+  }
+
+  private static String encode(String json) {
+    return BaseEncoding.base64Url().omitPadding().encode(json.getBytes(UTF_8));
+  }
+
+}
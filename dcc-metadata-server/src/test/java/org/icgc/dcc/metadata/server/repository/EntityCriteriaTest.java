@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+public class EntityCriteriaTest {
+
+  @Test
+  public void testOf_empty() {
+    assertThat(render(ImmutableMap.of())).isEqualTo(new BasicDBObject());
+  }
+
+  @Test
+  public void testOf_equals() {
+    assertThat(render(ImmutableMap.of("gnosId", "g1", "createdTime", "123")))
+        .isEqualTo(new BasicDBObject("gnosId", "g1").append("createdTime", 123L));
+  }
+
+  @Test
+  public void testOf_equals_empty() {
+    assertThat(render(ImmutableMap.of("access", ""))).isEqualTo(new BasicDBObject("access", null));
+  }
+
+  @Test
+  public void testOf_in() {
+    assertThat(render(ImmutableMap.of("gnosId", "g1, g2,")))
+        .isEqualTo(new BasicDBObject("gnosId", new BasicDBObject("$in", ImmutableList.of("g1", "g2"))));
+  }
+
+  @Test
+  public void testOf_in_fileName() {
+    // File names may contain commas
+    assertThat(render(ImmutableMap.of("fileName", "a,b.bam"))).isEqualTo(new BasicDBObject("fileName", "a,b.bam"));
+  }
+
+  @Test
+  public void testOf_repeated() {
+    assertThat(render(multiValueMap("gnosId", "g1", "g2,g3")))
+        .isEqualTo(new BasicDBObject("gnosId", new BasicDBObject("$in", ImmutableList.of("g1", "g2", "g3"))));
+  }
+
+  @Test
+  public void testOf_repeated_fileName() {
+    assertThat(render(multiValueMap("fileName", "a,b.bam", "c.bam")))
+        .isEqualTo(new BasicDBObject("fileName", new BasicDBObject("$in", ImmutableList.of("a,b.bam", "c.bam"))));
+  }
+
+  @Test
+  public void testOf_repeated_single() {
+    assertThat(render(multiValueMap("createdTime", "123"))).isEqualTo(new BasicDBObject("createdTime", 123L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOf_repeated_range() {
+    EntityCriteria.of(multiValueMap("createdAfter", "100", "200"));
+  }
+
+  @Test
+  public void testOf_prefix() {
+    DBObject rendered = render(ImmutableMap.of("fileNamePrefix", "a.b"));
+    Pattern pattern = (Pattern) rendered.get("fileName");
+
+    assertThat(pattern.matcher("a.bam").find()).isTrue();
+    assertThat(pattern.matcher("axbam").find()).isFalse();
+    assertThat(pattern.matcher("xa.bam").find()).isFalse();
+  }
+
+  @Test
+  public void testOf_range() {
+    assertThat(render(ImmutableMap.of("createdAfter", "100", "createdBefore", "200", "projectCode", "PACA-CA")))
+        .isEqualTo(new BasicDBObject("projectCode", "PACA-CA")
+            .append("createdTime", new BasicDBObject("$gt", 100L).append("$lt", 200L)));
+  }
+
+  @Test
+  public void testOf_reserved() {
+    assertThat(render(ImmutableMap.of("page", "1", "size", "10", "sort", "id", "count", "false")))
+        .isEqualTo(new BasicDBObject());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOf_unknown() {
+    EntityCriteria.of(ImmutableMap.of("projectcode", "PACA-CA"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOf_invalid() {
+    EntityCriteria.of(ImmutableMap.of("createdBefore", "yesterday"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOf_conflicting() {
+    EntityCriteria.of(ImmutableMap.of("createdTime", "100", "createdAfter", "50"));
+  }
+
+  private static DBObject render(Map<String, String> params) {
+    return EntityCriteria.of(params).getCriteriaObject();
+  }
+
+  private static DBObject render(MultiValueMap<String, String> params) {
+    return EntityCriteria.of(params).getCriteriaObject();
+  }
+
+  private static MultiValueMap<String, String> multiValueMap(String param, String... values) {
+    MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+    params.put(param, ImmutableList.copyOf(values));
+
+    return params;
+  }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.metadata.server.config.CacheConfig.ENTITIES_CACHE;
+import static org.icgc.dcc.metadata.server.config.CacheConfig.ENTITY_EXISTS_CACHE;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static org.springframework.data.mongodb.core.query.Update.update;
+
+import org.icgc.dcc.metadata.server.config.ServerContextTest;
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import lombok.val;
+
+@RunWith(SpringRunner.class)
+@ServerContextTest
+public class EntityRepositoryCacheTest {
+
+  private static final String ID = "cached";
+  private static final String ABSENT_ID = "absent";
+
+  @Autowired
+  EntityRepository repository;
+  @Autowired
+  CacheManager cacheManager;
+  @Autowired
+  MongoOperations mongoOperations;
+
+  @Before
+  public void setUp() {
+    repository.deleteAll();
+  }
+
+  @Test
+  public void testInsert_puts() {
+    repository.insert(createEntity("f1"));
+
+    assertThat(getCached(ENTITIES_CACHE, ID)).isNotNull();
+  }
+
+  @Test
+  public void testFindOne_hit() {
+    repository.insert(createEntity("f1"));
+
+    // Bypasses the repository, so only visible on a cache miss
+    mongoOperations.updateFirst(query(where("id").is(ID)), update("fileName", "f2"), Entity.class);
+    assertThat(mongoOperations.findById(ID, Entity.class).getFileName()).isEqualTo("f2");
+
+    assertThat(repository.findOne(ID).getFileName()).isEqualTo("f1");
+  }
+
+  @Test
+  public void testFindOne_missNotCached() {
+    assertThat(repository.findOne(ABSENT_ID)).isNull();
+    assertThat(getCached(ENTITIES_CACHE, ABSENT_ID)).isNull();
+
+    repository.insert(createEntity(ABSENT_ID, "f1"));
+    assertThat(repository.findOne(ABSENT_ID)).isNotNull();
+  }
+
+  @Test
+  public void testSave_refreshes() {
+    repository.insert(createEntity("f1"));
+    repository.findOne(ID);
+
+    repository.save(createEntity("f2"));
+
+    assertThat(repository.findOne(ID).getFileName()).isEqualTo("f2");
+  }
+
+  @Test
+  public void testExists_onlyHitsCached() {
+    repository.insert(createEntity("f1"));
+
+    assertThat(repository.exists(ID)).isTrue();
+    assertThat(repository.exists(ABSENT_ID)).isFalse();
+
+    assertThat(getCached(ENTITY_EXISTS_CACHE, ID)).isEqualTo(true);
+    assertThat(getCached(ENTITY_EXISTS_CACHE, ABSENT_ID)).isNull();
+  }
+
+  @Test
+  public void testDelete_evicts() {
+    repository.insert(createEntity("f1"));
+    repository.exists(ID);
+
+    repository.delete(ID);
+
+    assertThat(getCached(ENTITIES_CACHE, ID)).isNull();
+    assertThat(getCached(ENTITY_EXISTS_CACHE, ID)).isNull();
+    assertThat(repository.findOne(ID)).isNull();
+    assertThat(repository.exists(ID)).isFalse();
+  }
+
+  @Test
+  public void testDeleteEntity_evicts() {
+    val entity = repository.insert(createEntity("f1"));
+    repository.exists(ID);
+
+    repository.delete(entity);
+
+    assertThat(getCached(ENTITIES_CACHE, ID)).isNull();
+    assertThat(getCached(ENTITY_EXISTS_CACHE, ID)).isNull();
+  }
+
+  private Object getCached(String cacheName, String id) {
+    val value = cacheManager.getCache(cacheName).get(id);
+    return value == null ? null : value.get();
+  }
+
+  private static Entity createEntity(String fileName) {
+    return createEntity(ID, fileName);
+  }
+
+  private static Entity createEntity(String id, String fileName) {
+    val entity = new Entity();
+    entity.setId(id);
+    entity.setGnosId("g1");
+    entity.setFileName(fileName);
+    entity.setProjectCode("PROJ-CD1");
+    entity.setAccess("controlled");
+
+    return entity;
+  }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
+import java.util.List;
+
+import org.icgc.dcc.metadata.server.config.ServerContextTest;
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.query.DocumentCursor;
+import org.icgc.dcc.metadata.server.query.Keyset;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.mongodb.DBObject;
+
+import lombok.val;
+
+/**
+ * Reads documents as stored, so property names must be mapped to field names, e.g. {@code id} to {@code _id}, as the
+ * entity queries would.
+ */
+@RunWith(SpringRunner.class)
+@ServerContextTest
+public class EntityRepositoryDocumentsTest {
+
+  private static final long CREATED_TIME = 1475280000000L;
+
+  @Autowired
+  EntityRepository repository;
+
+  @Before
+  public void setUp() {
+    repository.deleteAll();
+    repository.insert(createEntity("id-1", "g1", CREATED_TIME + 2));
+    repository.insert(createEntity("id-2", "g1", CREATED_TIME + 1));
+    repository.insert(createEntity("id-3", "g2", CREATED_TIME + 1));
+  }
+
+  @Test
+  public void testFindDocuments_idFilterAndSort() {
+    val query = EntityQuery.of(ImmutableMap.of("id", "id-1,id-3"), ImmutableList.of("id", "gnosId"));
+
+    try (val documents = repository.findDocuments(query, new PageRequest(0, 10, DESC, "id"))) {
+      val content = consume(documents);
+
+      assertThat(content).extracting(document -> document.get("_id")).containsExactly("id-3", "id-1");
+      assertThat(content).extracting(document -> document.get("gnosId")).containsExactly("g2", "g1");
+      assertThat(content.get(0).keySet()).containsOnly("_id", "gnosId");
+      assertThat(documents.hasNextSlice()).isFalse();
+    }
+  }
+
+  @Test
+  public void testFindDocuments_slice() {
+    val query = EntityQuery.of(ImmutableMap.of(), ImmutableList.of("id"));
+
+    try (val documents = repository.findDocuments(query, new PageRequest(0, 2, new Sort("id")))) {
+      assertThat(consume(documents)).extracting(document -> document.get("_id")).containsExactly("id-1", "id-2");
+      assertThat(documents.hasNextSlice()).isTrue();
+    }
+  }
+
+  @Test
+  public void testCount() {
+    val query = EntityQuery.of(ImmutableMap.of("gnosId", "g1"), null);
+
+    assertThat(repository.count(query, false)).isEqualTo(2);
+  }
+
+  @Test
+  public void testFindDocumentsAfter() {
+    val pageable = new PageRequest(0, 2, new Sort("createdTime"));
+    val fields = ImmutableList.of("gnosId");
+
+    List<DBObject> first;
+    String next;
+    try (val documents = repository.findDocumentsAfter(EntityQuery.of(ImmutableMap.of(), fields), pageable, null)) {
+      first = consume(documents);
+      next = documents.getNext().encode();
+    }
+
+    // Ties on createdTime are broken by id
+    assertThat(first).extracting(document -> document.get("_id")).containsExactly("id-2", "id-3");
+    // Sort fields are included to read the next keyset from
+    assertThat(first.get(0).keySet()).containsOnly("_id", "gnosId", "createdTime");
+
+    val after = Keyset.decode(next);
+    try (val documents = repository.findDocumentsAfter(EntityQuery.of(ImmutableMap.of(), fields), pageable, after)) {
+      assertThat(consume(documents)).extracting(document -> document.get("_id")).containsExactly("id-1");
+      assertThat(documents.getNext()).isNull();
+    }
+  }
+
+  private static List<DBObject> consume(DocumentCursor documents) {
+    return Lists.newArrayList(documents);
+  }
+
+  private static Entity createEntity(String id, String gnosId, long createdTime) {
+    val entity = new Entity();
+    entity.setId(id);
+    entity.setGnosId(gnosId);
+    entity.setFileName(id + ".bam");
+    entity.setProjectCode("PROJ-CD1");
+    entity.setAccess("controlled");
+    entity.setCreatedTime(createdTime);
+
+    return entity;
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.service;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.query.Keyset;
+import org.icgc.dcc.metadata.server.query.KeysetSlice;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.google.common.collect.ImmutableList;
+
+import lombok.val;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EntityChangeFeedTest {
+
+  private static final long TIMEOUT = 30000;
+  private static final long SETTLE = 0;
+  private static final String ID = "123";
+  private static final long CREATED_TIME = 1475280000000L;
+
+  @Mock
+  EntityRepository repository;
+  @Mock
+  RegistrationBatcher batcher;
+
+  EntityChangeFeed sut;
+
+  @Before
+  public void setUp() {
+    sut = new EntityChangeFeed(TIMEOUT, SETTLE, repository, batcher);
+  }
+
+  @After
+  public void tearDown() {
+    sut.shutdown();
+  }
+
+  @Test
+  public void testPoll_changes() throws Exception {
+    when(repository.<Entity> findAfter(any(Query.class), any(Pageable.class), any(Keyset.class)))
+        .thenReturn(slice(createEntity()));
+
+    val changes = sut.poll("", 10);
+
+    assertThat(changes.isDone()).isTrue();
+    assertThat(changes.get().getContent()).extracting("id").containsExactly(ID);
+    assertThat(changes.get().isLast()).isTrue();
+    assertThat(Keyset.decode(changes.get().getNext()).getValues()).containsExactly(CREATED_TIME, ID);
+  }
+
+  @Test
+  public void testPoll_resume() throws Exception {
+    val since = new Keyset(ImmutableList.of("createdTime", "id"), ImmutableList.<Object> of(CREATED_TIME, ID));
+    when(repository.<Entity> findAfter(any(Query.class), any(Pageable.class), any(Keyset.class))).thenReturn(slice());
+
+    val changes = sut.poll(since.encode(), 10);
+    changes.cancel(false);
+
+    val query = ArgumentCaptor.forClass(Query.class);
+    verify(repository).findAfter(query.capture(), any(Pageable.class), eq(since));
+    assertThat(query.getValue().getQueryObject().keySet()).containsExactly("createdTime");
+  }
+
+  @Test
+  public void testPoll_waitsForRegistrations() throws Exception {
+    when(repository.<Entity> findAfter(any(Query.class), any(Pageable.class), any(Keyset.class)))
+        .thenReturn(slice(), slice(createEntity()));
+
+    val changes = sut.poll("", 10);
+    assertThat(changes.isDone()).isFalse();
+
+    sut.registered(new EntitiesRegisteredEvent(this, 1));
+
+    assertThat(changes.get(5, SECONDS).getContent()).extracting("id").containsExactly(ID);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSettle_shorterThanBatchedInserts() {
+    when(batcher.isEnabled()).thenReturn(true);
+    when(batcher.getMaxDelay()).thenReturn(5L);
+    when(batcher.getTimeout()).thenReturn(1000L);
+
+    new EntityChangeFeed(TIMEOUT, 1000, repository, batcher);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPoll_invalidPosition() {
+    sut.poll(new Keyset(ImmutableList.of("id"), ImmutableList.<Object> of(ID)).encode(), 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPoll_invalidSize() {
+    sut.poll("", EntityChangeFeed.MAX_SIZE + 1);
+  }
+
+  private static KeysetSlice<Entity> slice(Entity... entities) {
+    return new KeysetSlice<Entity>(ImmutableList.copyOf(entities), new PageRequest(0, 10), null);
+  }
+
+  private static Entity createEntity() {
+    val entity = new Entity();
+    entity.setId(ID);
+    entity.setCreatedTime(CREATED_TIME);
+
+    return entity;
+  }
+
+}
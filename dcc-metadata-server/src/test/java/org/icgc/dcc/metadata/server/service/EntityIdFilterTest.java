@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.service;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+
+import com.google.common.collect.ImmutableList;
+
+import lombok.val;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EntityIdFilterTest {
+
+  private static final int EXPECTED_INSERTIONS = 1000;
+  private static final double FPP = 0.0001;
+  private static final int THREADS = 4;
+
+  @Mock
+  EntityRepository repository;
+
+  @Test
+  public void testMightContain_beforeBuild() {
+    val sut = new EntityIdFilter(true, EXPECTED_INSERTIONS, FPP, repository);
+
+    assertThat(sut.mightContain("absent")).isTrue();
+  }
+
+  @Test
+  public void testMightContain() {
+    when(repository.stream(any(Query.class))).thenReturn(iterator(createEntity("1"), createEntity("2")));
+    val sut = new EntityIdFilter(true, EXPECTED_INSERTIONS, FPP, repository);
+    sut.build();
+    sut.add("3");
+
+    assertThat(sut.mightContain("1")).isTrue();
+    assertThat(sut.mightContain("2")).isTrue();
+    assertThat(sut.mightContain("3")).isTrue();
+    assertThat(sut.mightContain("absent")).isFalse();
+    assertThat(sut.metrics()).extracting("name").contains("entity.filter.absent");
+  }
+
+  @Test
+  public void testMightContain_concurrent() throws Exception {
+    when(repository.stream(any(Query.class))).thenReturn(iterator());
+    val sut = new EntityIdFilter(true, EXPECTED_INSERTIONS * 100, FPP, repository);
+    sut.build();
+
+    val added = new AtomicInteger();
+    val falseNegatives = new AtomicInteger();
+    val readers = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int i = 0; i < THREADS; i++) {
+        readers.execute(() -> {
+          while (added.get() < EXPECTED_INSERTIONS * 100) {
+            // Only ids whose add has returned
+            int count = added.get();
+            for (int id = Math.max(0, count - 10); id < count; id++) {
+              if (!sut.mightContain(Integer.toString(id))) {
+                falseNegatives.incrementAndGet();
+              }
+            }
+          }
+        });
+      }
+
+      for (int id = 0; id < EXPECTED_INSERTIONS * 100; id++) {
+        sut.add(Integer.toString(id));
+        added.set(id + 1);
+      }
+    } finally {
+      readers.shutdown();
+      readers.awaitTermination(10, SECONDS);
+    }
+
+    assertThat(falseNegatives.get()).isZero();
+  }
+
+  @Test
+  public void testMightContain_disabled() {
+    val sut = new EntityIdFilter(false, EXPECTED_INSERTIONS, FPP, repository);
+    sut.build();
+    sut.add("1");
+
+    assertThat(sut.mightContain("absent")).isTrue();
+  }
+
+  private static Entity createEntity(String id) {
+    val entity = new Entity();
+    entity.setId(id);
+
+    return entity;
+  }
+
+  private static CloseableIterator<Entity> iterator(Entity... entities) {
+    Iterator<Entity> iterator = ImmutableList.copyOf(entities).iterator();
+    return new CloseableIterator<Entity>() {
+
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void close() {
+      }
+
+    };
+  }
+
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.service;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.icgc.dcc.metadata.server.model.RegistrationResult.Status.CONFLICT;
+import static org.icgc.dcc.metadata.server.model.RegistrationResult.Status.CREATED;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.icgc.dcc.metadata.server.metrics.ServerMetrics;
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import lombok.val;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EntityServiceTest {
+
+  private static final String GNOS_ID = "g123";
+  private static final String FILE_NAME = "f123";
+  private static final int THREADS = 16;
+
+  @Mock
+  EntityRepository repository;
+  @Mock
+  EntityIdFilter idFilter;
+  @Spy
+  ServerMetrics metrics = new ServerMetrics();
+  @Mock
+  ApplicationEventPublisher publisher;
+  @Mock
+  RegistrationBatcher batcher;
+
+  @InjectMocks
+  EntityService sut;
+
+  /**
+   * Backs {@link #repository} with the same insert semantics as a unique {@code _id}.
+   */
+  Map<String, Entity> entities;
+
+  @Before
+  public void setUp() {
+    entities = new ConcurrentHashMap<>();
+    when(repository.insert(any(Entity.class))).then(invocation -> {
+      Entity entity = invocation.getArgumentAt(0, Entity.class);
+      if (entities.putIfAbsent(entity.getId(), entity) != null) {
+        throw new DuplicateKeyException(entity.getId());
+      }
+
+      return entity;
+    });
+    when(repository.findOne(anyString())).then(invocation -> entities.get(invocation.getArgumentAt(0, String.class)));
+  }
+
+  @Test
+  public void testRegister() {
+    val registered = sut.register(createEntity());
+
+    assertThat(registered.getId()).isNotNull();
+    assertThat(registered.getCreatedTime()).isNotNull();
+    assertThat(entities).containsOnlyKeys(registered.getId());
+    verify(repository, never()).findByGnosIdAndFileName(GNOS_ID, FILE_NAME);
+    verify(idFilter).add(registered.getId());
+    verify(publisher).publishEvent(any(EntitiesRegisteredEvent.class));
+  }
+
+  @Test
+  public void testExists_filtered() {
+    when(idFilter.mightContain("absent")).thenReturn(false);
+
+    assertThat(sut.exists("absent")).isFalse();
+    verify(repository, never()).exists("absent");
+  }
+
+  @Test
+  public void testExists_unfiltered() {
+    when(idFilter.mightContain("present")).thenReturn(true);
+    when(repository.exists("present")).thenReturn(true);
+
+    assertThat(sut.exists("present")).isTrue();
+  }
+
+  @Test
+  public void testRegister_duplicate() {
+    val registered = sut.register(createEntity());
+
+    try {
+      sut.register(createEntity());
+    } catch (DuplicateEntityException e) {
+      assertThat(e.getExisting()).isSameAs(registered);
+      assertThat(metrics.counter(EntityService.CONFLICTS_METRIC).sum()).isEqualTo(1);
+      verify(publisher, times(1)).publishEvent(any(EntitiesRegisteredEvent.class));
+      return;
+    }
+
+    throw new AssertionError("Expected " + DuplicateEntityException.class.getSimpleName());
+  }
+
+  @Test
+  public void testRegister_duplicateUnderDifferentId() {
+    val existing = createEntity();
+    existing.setId("legacy");
+    doThrow(new DuplicateKeyException("gnosId_fileName")).when(repository).insert(any(Entity.class));
+    when(repository.findByGnosIdAndFileName(GNOS_ID, FILE_NAME)).thenReturn(existing);
+
+    try {
+      sut.register(createEntity());
+    } catch (DuplicateEntityException e) {
+      assertThat(e.getExisting()).isSameAs(existing);
+      return;
+    }
+
+    throw new AssertionError("Expected " + DuplicateEntityException.class.getSimpleName());
+  }
+
+  @Test
+  public void testRegisterAll_duplicateUnderDifferentId() {
+    val existing = createEntity();
+    existing.setId("legacy");
+    val other = createEntity();
+    other.setFileName("other");
+    when(repository.bulkInsert(anyListOf(Entity.class))).thenReturn(ImmutableSet.of(0));
+    when(repository.findByGnosIdAndFileName(GNOS_ID, FILE_NAME)).thenReturn(existing);
+
+    val results = sut.registerAll(ImmutableList.of(createEntity(), createEntity(), other));
+
+    assertThat(results).extracting("status").containsExactly(CONFLICT, CONFLICT, CREATED);
+    assertThat(results).extracting("id").containsExactly("legacy", "legacy", other.getId());
+    assertThat(metrics.counter(EntityService.CONFLICTS_METRIC).sum()).isEqualTo(2);
+    verify(idFilter).add("legacy");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRegisterAll_tooManyEntities() {
+    val entities = Lists.<Entity> newArrayList();
+    for (int i = 0; i <= EntityService.MAX_KEYS; i++) {
+      val entity = createEntity();
+      entity.setFileName("f" + i);
+      entities.add(entity);
+    }
+
+    sut.registerAll(entities);
+  }
+
+  @Test
+  public void testRegister_batched() {
+    when(batcher.isEnabled()).thenReturn(true);
+    when(batcher.insert(any(Entity.class))).then(invocation -> completedFuture(invocation.getArgumentAt(0, Entity.class)));
+
+    val registered = sut.register(createEntity());
+
+    assertThat(registered.getId()).isNotNull();
+    verify(repository, never()).insert(any(Entity.class));
+    verify(idFilter).add(registered.getId());
+  }
+
+  @Test
+  public void testRegister_batchedDuplicate() {
+    val existing = sut.register(createEntity());
+    when(batcher.isEnabled()).thenReturn(true);
+    val duplicate = new CompletableFuture<Entity>();
+    duplicate.completeExceptionally(new DuplicateKeyException(existing.getId()));
+    when(batcher.insert(any(Entity.class))).thenReturn(duplicate);
+
+    try {
+      sut.register(createEntity());
+    } catch (DuplicateEntityException e) {
+      assertThat(e.getExisting()).isSameAs(existing);
+      assertThat(metrics.counter(EntityService.CONFLICTS_METRIC).sum()).isEqualTo(1);
+      return;
+    }
+
+    throw new AssertionError("Expected " + DuplicateEntityException.class.getSimpleName());
+  }
+
+  @Test(expected = QueryTimeoutException.class)
+  public void testRegister_batchedTimeout() {
+    when(batcher.isEnabled()).thenReturn(true);
+    when(batcher.getTimeout()).thenReturn(10L);
+    when(batcher.insert(any(Entity.class))).thenReturn(new CompletableFuture<Entity>());
+
+    sut.register(createEntity());
+  }
+
+  @Test
+  public void testRegister_concurrent() throws Exception {
+    val executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      val start = new CountDownLatch(1);
+      val futures = Lists.<Future<Entity>> newArrayList();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(executor.submit((Callable<Entity>) () -> {
+          start.await();
+          return sut.register(createEntity());
+        }));
+      }
+      start.countDown();
+
+      int registered = 0;
+      int duplicates = 0;
+      for (val future : futures) {
+        try {
+          future.get(10, SECONDS);
+          registered++;
+        } catch (ExecutionException e) {
+          assertThat(e.getCause()).isInstanceOf(DuplicateEntityException.class);
+          val existing = ((DuplicateEntityException) e.getCause()).getExisting();
+          assertThat(existing).isSameAs(entities.get(existing.getId()));
+          duplicates++;
+        }
+      }
+
+      assertThat(registered).isEqualTo(1);
+      assertThat(duplicates).isEqualTo(THREADS - 1);
+      assertThat(entities).hasSize(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void findRegisteredTest_skipsFilteredIds() {
+    val present = createEntity();
+    val absent = createEntity();
+    absent.setFileName("absent");
+    val byId = new Entity();
+    byId.setId("other");
+
+    val presentId = EntityService.resolveFileId(GNOS_ID, FILE_NAME);
+    when(idFilter.mightContain(anyString())).thenReturn(true);
+    when(idFilter.mightContain(EntityService.resolveFileId(GNOS_ID, "absent"))).thenReturn(false);
+    when(repository.findExistingIds(any(Collection.class))).thenReturn(ImmutableSet.of(presentId));
+
+    val registered = sut.findRegistered(Lists.newArrayList(present, absent, byId));
+
+    assertThat(registered).containsExactly(presentId);
+    verify(repository).findExistingIds(ImmutableSet.of(presentId, "other"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void findRegisteredTest_withoutKey() {
+    val key = new Entity();
+    key.setGnosId(GNOS_ID);
+
+    sut.findRegistered(Lists.newArrayList(key));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void findRegisteredTest_tooManyKeys() {
+    val keys = Lists.<Entity> newArrayList();
+    for (int i = 0; i <= EntityService.MAX_KEYS; i++) {
+      val key = new Entity();
+      key.setId("id-" + i);
+      keys.add(key);
+    }
+
+    sut.findRegistered(keys);
+  }
+
+  private static Entity createEntity() {
+    val entity = new Entity();
+    entity.setGnosId(GNOS_ID);
+    entity.setFileName(FILE_NAME);
+    entity.setProjectCode("PROJ-CD1");
+    entity.setAccess("controlled");
+
+    return entity;
+  }
+
+}
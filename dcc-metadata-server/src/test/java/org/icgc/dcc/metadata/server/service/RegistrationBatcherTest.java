@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2016 The Ontario Institute for Cancer Research. All rights reserved.                             
+ *                                                                                                               
+ * This program and the accompanying materials are made available under the terms of the GNU Public License v3.0.
+ * You should have received a copy of the GNU General Public License along with                                  
+ * this program. If not, see <http://www.gnu.org/licenses/>.                                                     
+ *                                                                                                               
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY                           
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES                          
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT                           
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,                                
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED                          
+ * TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;                               
+ * OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER                              
+ * IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN                         
+ * ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.icgc.dcc.metadata.server.service;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import org.icgc.dcc.metadata.server.model.Entity;
+import org.icgc.dcc.metadata.server.repository.EntityRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import lombok.val;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RegistrationBatcherTest {
+
+  private static final int MAX_SIZE = 10;
+  private static final long MAX_DELAY = 100;
+  private static final long TIMEOUT = 200;
+
+  @Mock
+  EntityRepository repository;
+
+  RegistrationBatcher sut;
+
+  @Before
+  public void setUp() {
+    sut = new RegistrationBatcher(true, MAX_SIZE, MAX_DELAY, TIMEOUT, repository);
+  }
+
+  @After
+  public void tearDown() {
+    sut.shutdown();
+  }
+
+  @Test
+  public void testInsert() throws Exception {
+    when(repository.findExistingIds(anyCollectionOf(String.class))).thenReturn(ImmutableSet.of("registered"));
+    when(repository.bulkInsert(anyListOf(Entity.class))).thenReturn(ImmutableSet.of(1));
+
+    val inserted = sut.insert(createEntity("new"));
+    val registered = sut.insert(createEntity("registered"));
+    val repeated = sut.insert(createEntity("new"));
+    val concurrent = sut.insert(createEntity("concurrent"));
+
+    assertThat(inserted.get(5, SECONDS).getId()).isEqualTo("new");
+    assertDuplicate(registered);
+    assertDuplicate(repeated);
+    assertDuplicate(concurrent);
+
+    // A single batch
+    verify(repository).findExistingIds(ImmutableList.of("new", "registered", "new", "concurrent"));
+    verify(repository).bulkInsert(ImmutableList.of(createEntity("new"), createEntity("concurrent")));
+  }
+
+  @Test
+  public void testInsert_failure() throws Exception {
+    val failure = new DataAccessResourceFailureException("down");
+    when(repository.findExistingIds(anyCollectionOf(String.class))).thenThrow(failure);
+
+    val insert = sut.insert(createEntity("new"));
+
+    try {
+      insert.get(5, SECONDS);
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isSameAs(failure);
+      return;
+    }
+
+    throw new AssertionError("Expected " + DataAccessResourceFailureException.class.getSimpleName());
+  }
+
+  @Test
+  public void testInsert_expired() throws Exception {
+    val started = new CountDownLatch(1);
+    val release = new CountDownLatch(1);
+    when(repository.findExistingIds(anyCollectionOf(String.class))).thenReturn(ImmutableSet.of());
+    when(repository.bulkInsert(anyListOf(Entity.class))).then(invocation -> {
+      started.countDown();
+      release.await();
+      return ImmutableSet.of();
+    });
+
+    val first = sut.insert(createEntity("first"));
+    assertThat(started.await(5, SECONDS)).isTrue();
+
+    // Waits for the first batch to be written for longer than the timeout
+    val late = sut.insert(createEntity("late"));
+    Thread.sleep(TIMEOUT + MAX_DELAY);
+    release.countDown();
+
+    assertThat(first.get(5, SECONDS).getId()).isEqualTo("first");
+    try {
+      late.get(5, SECONDS);
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(QueryTimeoutException.class);
+      verify(repository, never()).bulkInsert(ImmutableList.of(createEntity("late")));
+      return;
+    }
+
+    throw new AssertionError("Expected " + QueryTimeoutException.class.getSimpleName());
+  }
+
+  @Test
+  public void testInsert_shutdown() throws Exception {
+    sut.shutdown();
+
+    val insert = sut.insert(createEntity("new"));
+
+    try {
+      insert.get(5, SECONDS);
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+      verify(repository, never()).bulkInsert(anyListOf(Entity.class));
+      return;
+    }
+
+    throw new AssertionError("Expected " + IllegalStateException.class.getSimpleName());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testInsert_disabled() {
+    new RegistrationBatcher(false, MAX_SIZE, MAX_DELAY, TIMEOUT, repository).insert(createEntity("new"));
+  }
+
+  private static void assertDuplicate(CompletableFuture<Entity> insert) throws Exception {
+    try {
+      insert.get(5, SECONDS);
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(DuplicateKeyException.class);
+      return;
+    }
+
+    throw new AssertionError("Expected " + DuplicateKeyException.class.getSimpleName());
+  }
+
+  private static Entity createEntity(String id) {
+    val entity = new Entity();
+    entity.setId(id);
+
+    return entity;
+  }
+
+}